@@ -0,0 +1,176 @@
+package benchmark;
+
+import analyzer.LogInfo;
+import analyzer.LogTimestamp;
+import analyzer.Parser;
+import common.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the log analyzer. The statistics are extracted from a log
+ * written in the setup, so the results do not depend on the logs around.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark
+{
+    /** The number of actions in the log. */
+    private static final int ACTIONS = 1000;
+    /** Some of the lines of a game, repeated to fill the log. */
+    private static final String[] LINES = {
+        "Ready",
+        "Set",
+        "Playing",
+        "Illegal Defender Blue 3",
+        "Fallen Robot Red 2",
+        "Unpenalised Blue 3",
+        "Goal for Team Red",
+        "Leaving the Field Blue 5",
+        "Dropped Ball",
+        "Request for PickUp Red 4"
+    };
+    /** A timestamp of the log. */
+    private static final String TIMESTAMP = "2014.7.22-15.04.59";
+
+    /** The log file. */
+    private File logFile;
+    /** The information read from the log. */
+    private LogInfo log;
+    /** The time of the timestamp. */
+    private long time;
+    /** The statistics output the timestamp is written into. */
+    private StringBuilder out = new StringBuilder();
+    /** How the old analyzer parsed the timestamps. */
+    private SimpleDateFormat parseFormat;
+    /** How the old analyzer formatted the timestamps. */
+    private SimpleDateFormat outputFormat;
+
+    /**
+     * The timestamps of a log of another day for each thread, as when
+     * several logs are analyzed at once.
+     */
+    @State(Scope.Thread)
+    public static class Day
+    {
+        /** The number of threads that got a day. */
+        private static final AtomicInteger days = new AtomicInteger();
+
+        /** Timestamps of a few minutes of the day. */
+        private String[] timestamps = new String[64];
+        /** The next timestamp to parse. */
+        private int next = 0;
+        /** The statistics output the timestamps are written into. */
+        private StringBuilder out = new StringBuilder();
+
+        @Setup
+        public void setup() throws ParseException
+        {
+            SimpleDateFormat timestamp = (SimpleDateFormat)Log.timestampFormat.clone();
+            long start = timestamp.parse(TIMESTAMP).getTime() + days.getAndIncrement() * 24 * 60 * 60 * 1000L;
+            for(int i=0; i<timestamps.length; i++) {
+                timestamps[i] = timestamp.format(new Date(start + i * 2000L));
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, ParseException
+    {
+        logFile = File.createTempFile("benchmark", ".txt");
+        SimpleDateFormat timestamp = (SimpleDateFormat)Log.timestampFormat.clone();
+        long start = timestamp.parse(TIMESTAMP).getTime();
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(logFile), "UTF-8"));
+        try {
+            writer.println(timestamp.format(new Date(start)) + ": GC2 1.1");
+            writer.println(timestamp.format(new Date(start)) + ": League = SPL");
+            writer.println(timestamp.format(new Date(start)) + ": Auto color change = true");
+            writer.println(timestamp.format(new Date(start)) + ": B-Human vs Nao Devils");
+            writer.println(timestamp.format(new Date(start)) + ": 1st Half");
+            for(int i=0; i<ACTIONS; i++) {
+                writer.println(timestamp.format(new Date(start + i * 2000L)) + ": " + LINES[i % LINES.length]);
+            }
+            writer.println(timestamp.format(new Date(start + ACTIONS * 2000L)) + ": Finished");
+        } finally {
+            writer.close();
+        }
+        log = new LogInfo(logFile);
+
+        time = start;
+        parseFormat = timestamp;
+        outputFormat = new SimpleDateFormat("yyyy-MM-dd kk:mm:ss");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        logFile.delete();
+    }
+
+    @Benchmark
+    public String parserStatistic()
+    {
+        return Parser.statistic(log);
+    }
+
+    @Benchmark
+    public long logTimestampParse() throws ParseException
+    {
+        return LogTimestamp.parse(TIMESTAMP, 0, TIMESTAMP.length());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public StringBuilder logTimestampParallel(Day day) throws ParseException
+    {
+        String timestamp = day.timestamps[day.next++ & (day.timestamps.length - 1)];
+        day.out.setLength(0);
+        LogTimestamp.format(LogTimestamp.parse(timestamp, 0, timestamp.length()), day.out);
+        return day.out;
+    }
+
+    @Benchmark
+    public long simpleDateFormatParse() throws ParseException
+    {
+        return parseFormat.parse(TIMESTAMP).getTime();
+    }
+
+    @Benchmark
+    public StringBuilder logTimestampFormat()
+    {
+        out.setLength(0);
+        LogTimestamp.format(time, out);
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder simpleDateFormatFormat()
+    {
+        out.setLength(0);
+        return out.append(outputFormat.format(new Date(time)));
+    }
+}
@@ -0,0 +1,132 @@
+package benchmark;
+
+import common.Log;
+import controller.net.RobotWatcher;
+import data.AdvancedData;
+import data.GameControlData;
+import data.GameControlReturnData;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of what the controller does for every packet it receives from
+ * a robot and for every action of the user.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark
+{
+    /**
+     * How many states are logged per invocation. Together with the line
+     * Log.init() writes, they fit into the queue of the Log, so no line is
+     * dropped.
+     */
+    private static final int BATCH = 1024;
+
+    /** The game put into the log. */
+    private AdvancedData data;
+    /** A packet of a robot that is alive. */
+    private GameControlReturnData alive;
+
+    /**
+     * The log file, which is opened before and closed after each
+     * invocation, so every batch of lines starts with an empty queue.
+     */
+    @State(Scope.Thread)
+    public static class LogFile
+    {
+        /** The file written while benchmarking. */
+        private File file;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException
+        {
+            file = File.createTempFile("benchmark", ".txt");
+        }
+
+        @Setup(Level.Invocation)
+        public void open()
+        {
+            Log.init(file.getPath());
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            Log.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void delete()
+        {
+            file.delete();
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        data = new AdvancedData();
+        data.gameState = GameControlData.STATE_PLAYING;
+        data.team[0].teamNumber = 5;
+        data.team[1].teamNumber = 18;
+        RobotWatcher.updateTeams(data);
+
+        // the message never changes, so no action is triggered
+        alive = new GameControlReturnData();
+        alive.fromByteArray(DataBenchmark.createReturnPacket(5, 3));
+    }
+
+    @Benchmark
+    public void robotWatcherUpdate()
+    {
+        RobotWatcher.update(alive);
+    }
+
+    /**
+     * What logging a state costs the thread of the action, i.e. putting it
+     * into the timeline and its line into the queue. The lines are written
+     * by the writer thread meanwhile and after the invocation, which is not
+     * measured.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void logState(LogFile log)
+    {
+        for(int i=0; i<BATCH; i++) {
+            Log.state(data, "Goal for Team Blue");
+        }
+    }
+
+    /**
+     * What logging a state costs until its line is written into the file,
+     * i.e. including the batch writes of the writer thread.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void logStateWritten(LogFile log) throws IOException
+    {
+        for(int i=0; i<BATCH; i++) {
+            Log.state(data, "Goal for Team Blue");
+        }
+        Log.close();
+    }
+}
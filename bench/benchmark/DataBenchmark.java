@@ -0,0 +1,146 @@
+package benchmark;
+
+import data.AdvancedData;
+import data.GameControlData;
+import data.GameControlReturnData;
+import data.PlayerInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the data sent to and received from the robots and of the
+ * game state, which are used for every packet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataBenchmark
+{
+    /** A game in the middle of the first half. */
+    private AdvancedData data;
+    /** The packet of the game. */
+    private ByteBuffer packet;
+    /** The buffer packets are encoded into. */
+    private ByteBuffer buffer;
+    /** The data packets are decoded into. */
+    private GameControlData received;
+    /** A packet of a robot. */
+    private ByteBuffer returnPacket;
+    /** The data robot packets are decoded into. */
+    private GameControlReturnData returnData;
+
+    @Setup
+    public void setup()
+    {
+        data = new AdvancedData();
+        data.gameState = GameControlData.STATE_PLAYING;
+        data.whenCurrentGameStateBegan = System.currentTimeMillis() - 120000;
+        data.team[0].teamNumber = 5;
+        data.team[1].teamNumber = 18;
+        data.team[0].score = 2;
+        data.team[1].player[1].penalty = PlayerInfo.PENALTY_SPL_PLAYER_PUSHING;
+        data.whenPenalized[1][1] = System.currentTimeMillis() - 10000;
+        data.updateTimes();
+
+        packet = data.toByteArray();
+        buffer = ByteBuffer.allocate(GameControlData.SIZE);
+        received = new GameControlData();
+
+        returnPacket = createReturnPacket(5, 3);
+        returnData = new GameControlReturnData();
+    }
+
+    /**
+     * Creates a packet as a robot sends it to say it is alive.
+     *
+     * @param team      The teamNumber of the robot.
+     * @param player    The number of the robot.
+     *
+     * @return The packet.
+     */
+    static ByteBuffer createReturnPacket(int team, int player)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(GameControlReturnData.SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(GameControlReturnData.GAMECONTROLLER_RETURN_STRUCT_HEADER.getBytes());
+        buffer.putInt(GameControlReturnData.GAMECONTROLLER_RETURN_STRUCT_VERSION);
+        buffer.putShort((short)team);
+        buffer.putShort((short)player);
+        buffer.putInt(GameControlReturnData.GAMECONTROLLER_RETURN_MSG_ALIVE);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer gameControlDataToByteArray()
+    {
+        return data.toByteArray();
+    }
+
+    @Benchmark
+    public ByteBuffer gameControlDataEncodeInto()
+    {
+        buffer.clear();
+        data.encodeInto(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public boolean gameControlDataFromByteArray()
+    {
+        packet.rewind();
+        return received.fromByteArray(packet);
+    }
+
+    @Benchmark
+    public boolean gameControlReturnDataFromByteArray()
+    {
+        returnPacket.rewind();
+        return returnData.fromByteArray(returnPacket);
+    }
+
+    @Benchmark
+    public Object advancedDataClone()
+    {
+        return data.clone();
+    }
+
+    /**
+     * The deep copy as AdvancedData.clone() made it before it used the
+     * copy-constructors, for comparison.
+     */
+    @Benchmark
+    public Object advancedDataSerializationClone() throws IOException, ClassNotFoundException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ObjectOutputStream(out).writeObject(data);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        return new ObjectInputStream(in).readObject();
+    }
+
+    @Benchmark
+    public AdvancedData advancedDataUpdateTimes()
+    {
+        data.updateTimes();
+        return data;
+    }
+}
@@ -0,0 +1,240 @@
+package analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * This class classifies the lines of a log in a single pass over each line.
+ * It finds the longest action a line begins with, whether the line begins
+ * with an action that makes the teams change colors and which team color
+ * name the line contains.
+ *
+ * All these strings are compiled into one Aho-Corasick automaton. Each
+ * character of a line is one step in a table, no matter how many strings
+ * are searched for. As the longest action is taken, the order of the
+ * actions does not matter.
+ *
+ * An instance keeps the result of the last line, so it must only be used
+ * by one thread at a time.
+ */
+public class ActionMatcher
+{
+    /** The kinds of strings searched for. */
+    private static final int ACTION = 0;
+    private static final int COLOR_CHANGE = 1;
+    private static final int TEAM_COLOR = 2;
+
+    /** The strings searched for. */
+    private final String[] patterns;
+    /** The kind of each string. */
+    private final int[] kinds;
+    /** The index of each string within its kind. */
+    private final int[] indices;
+    /** The class of each ASCII character, 0 for all not in any string. */
+    private final int[] charClasses = new int[128];
+    /** The other characters in any string, ascending, and their classes. */
+    private final char[] otherChars;
+    private final int[] otherClasses;
+    /** The next state for each state and character class. */
+    private final int[][] transitions;
+    /** The strings that end in each state. */
+    private final int[][] outputs;
+    /** The length of the longest string a line must begin with. */
+    private final int maxPrefixLength;
+
+    /** The longest action the last line began with, or null. */
+    private String action;
+    /** Whether the last line began with an action changing colors. */
+    private boolean colorChange;
+    /** The lowest index of the team colors the last line contained, or -1. */
+    private int teamColor;
+
+
+    /**
+     * Creates a new ActionMatcher.
+     *
+     * @param actions               The actions a line may begin with.
+     * @param colorChangeActions    The actions after which the teams have
+     *                              changed colors.
+     * @param teamColors            The names of the team colors a line may
+     *                              contain, the first ones take precedence.
+     */
+    public ActionMatcher(String[] actions, String[] colorChangeActions, String[] teamColors)
+    {
+        int count = actions.length + colorChangeActions.length + teamColors.length;
+        patterns = new String[count];
+        kinds = new int[count];
+        indices = new int[count];
+        int p = 0;
+        int prefixLength = 0;
+        String[][] all = {actions, colorChangeActions, teamColors};
+        for(int kind=0; kind<all.length; kind++) {
+            for(int i=0; i<all[kind].length; i++) {
+                patterns[p] = all[kind][i];
+                kinds[p] = kind;
+                indices[p++] = i;
+                if(kind != TEAM_COLOR) {
+                    prefixLength = Math.max(prefixLength, all[kind][i].length());
+                }
+            }
+        }
+        maxPrefixLength = prefixLength;
+
+        // character classes
+        int classes = 1;
+        TreeMap<Character, Integer> others = new TreeMap<Character, Integer>();
+        for(String pattern : patterns) {
+            for(int i=0; i<pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if(c < charClasses.length) {
+                    if(charClasses[c] == 0) {
+                        charClasses[c] = classes++;
+                    }
+                } else if(!others.containsKey(c)) {
+                    others.put(c, classes++);
+                }
+            }
+        }
+        otherChars = new char[others.size()];
+        otherClasses = new int[others.size()];
+        int o = 0;
+        for(Map.Entry<Character, Integer> entry : others.entrySet()) {
+            otherChars[o] = entry.getKey();
+            otherClasses[o++] = entry.getValue();
+        }
+
+        // trie
+        ArrayList<int[]> trie = new ArrayList<int[]>();
+        ArrayList<int[]> ends = new ArrayList<int[]>();
+        trie.add(new int[classes]);
+        ends.add(new int[0]);
+        for(p=0; p<patterns.length; p++) {
+            int state = 0;
+            for(int i=0; i<patterns[p].length(); i++) {
+                int c = getCharClass(patterns[p].charAt(i));
+                if(trie.get(state)[c] == 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(new int[classes]);
+                    ends.add(new int[0]);
+                }
+                state = trie.get(state)[c];
+            }
+            int[] end = ends.get(state);
+            end = Arrays.copyOf(end, end.length + 1);
+            end[end.length - 1] = p;
+            ends.set(state, end);
+        }
+
+        // failure links, turning the trie into a complete table
+        transitions = trie.toArray(new int[trie.size()][]);
+        outputs = ends.toArray(new int[ends.size()][]);
+        int[] failure = new int[transitions.length];
+        LinkedList<Integer> queue = new LinkedList<Integer>();
+        for(int c=0; c<classes; c++) {
+            if(transitions[0][c] != 0) {
+                queue.add(transitions[0][c]);
+            }
+        }
+        while(!queue.isEmpty()) {
+            int state = queue.removeFirst();
+            int[] inherited = outputs[failure[state]];
+            if(inherited.length > 0) {
+                int[] merged = Arrays.copyOf(outputs[state], outputs[state].length + inherited.length);
+                System.arraycopy(inherited, 0, merged, outputs[state].length, inherited.length);
+                outputs[state] = merged;
+            }
+            for(int c=0; c<classes; c++) {
+                int next = transitions[state][c];
+                if(next != 0) {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                } else {
+                    transitions[state][c] = transitions[failure[state]][c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Classifies a line. The results can be asked for afterwards.
+     *
+     * @param line  The line without timestamp.
+     */
+    public void match(String line)
+    {
+        action = null;
+        colorChange = false;
+        teamColor = -1;
+        int state = 0;
+        for(int pos=0; pos<line.length(); pos++) {
+            state = transitions[state][getCharClass(line.charAt(pos))];
+            for(int p : outputs[state]) {
+                int length = patterns[p].length();
+                switch(kinds[p]) {
+                    case ACTION:
+                        if(length == pos + 1) {
+                            action = patterns[p];
+                        }
+                        break;
+                    case COLOR_CHANGE:
+                        if(length == pos + 1) {
+                            colorChange = true;
+                        }
+                        break;
+                    default:
+                        if(teamColor == -1 || indices[p] < teamColor) {
+                            teamColor = indices[p];
+                        }
+                }
+            }
+            if(teamColor == 0 && pos >= maxPrefixLength) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the longest action the last line began with.
+     *
+     * @return The action or null if the line did not begin with any action.
+     */
+    public String getAction()
+    {
+        return action;
+    }
+
+    /**
+     * Returns whether the last line began with an action after which the
+     * teams have changed colors.
+     *
+     * @return Whether the teams changed colors.
+     */
+    public boolean isColorChange()
+    {
+        return colorChange;
+    }
+
+    /**
+     * Returns which team color was named in the last line. If several were
+     * named, the one given first to the constructor is returned.
+     *
+     * @return The index of the team color or -1 if none was named.
+     */
+    public int getTeamColor()
+    {
+        return teamColor;
+    }
+
+    private int getCharClass(char c)
+    {
+        if(c < charClasses.length) {
+            return charClasses[c];
+        }
+        int i = Arrays.binarySearch(otherChars, c);
+        return i >= 0 ? otherClasses[i] : 0;
+    }
+}
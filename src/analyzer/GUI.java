@@ -13,6 +13,9 @@ import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
@@ -169,6 +172,7 @@ public class GUI extends JFrame implements ListSelectionListener
     /**
      * Analize all logs which are selected (checked) in the list to create
      * the statistic output file.
+     * The statistics of logs analyzed before are taken from the index.
      */
     private void analyze()
     {
@@ -185,19 +189,38 @@ public class GUI extends JFrame implements ListSelectionListener
             Log.error("Cannot create and open/write to file "+Main.stats);
             return;
         }
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
         int i = 0;
-        for(LogInfo log: Main.logs) {
+        for(final LogInfo log: Main.logs) {
             if(((CheckListItem)list.getElementAt(i++)).selected) {
-                Parser.statistic(log);
+                tasks.add(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        if(log.statistics == null) {
+                            log.statistics = Parser.statistic(log);
+                        }
+                        return log.statistics;
+                    }
+                });
             }
         }
+        try{
+            for(String rows: Main.runParallel(tasks, "Analyzed")) {
+                if(rows != null) {
+                    Main.writer.write(rows);
+                }
+            }
+        } catch(IOException e) {
+            Log.error("cannot write to file "+Main.stats);
+        }
+        Main.index.save();
         try{
             Main.writer.flush();
             Main.writer.close();
         } catch(IOException e) {
             Log.error("cannot close file "+Main.stats);
         }
-        JOptionPane.showMessageDialog(null, "Done");
+        JOptionPane.showMessageDialog(null, "Done\n" + Main.report);
     }
 
     @Override
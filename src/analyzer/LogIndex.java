@@ -0,0 +1,190 @@
+package analyzer;
+
+import common.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class keeps the information of all logs that were read before in a
+ * file next to the logs, so only new or changed logs must be parsed again
+ * when the analyzer is started. A log is identified by its path, size and
+ * the time it was last modified. The statistics of a log are kept as well
+ * after it was analyzed once, as long as the actions to extract stay the
+ * same.
+ */
+public class LogIndex
+{
+    /* The first bytes of each index, to be changed with its format. */
+    private final static int MAGIC = 0x47434931; // "GCI1"
+
+    /* The file the index is stored in. */
+    private File file;
+    /* The logs in the index, by their path. */
+    private HashMap<String, Entry> entries = new HashMap<String, Entry>();
+    /* If logs were put into or removed from the index since it was read or
+     * saved. */
+    private boolean changed = false;
+
+    /**
+     * A log in the index.
+     */
+    private static class Entry
+    {
+        /* The size of the log file when it was read. */
+        long size;
+        /* When the log file was last modified when it was read. */
+        long modified;
+        /* The information read from the log. */
+        LogInfo log;
+    }
+
+    /**
+     * Creates a new LogIndex and reads it from its file if it exists. If
+     * the file cannot be read, the index starts empty and all logs are
+     * parsed again.
+     *
+     * @param path  The path of the file the index is stored in.
+     */
+    public LogIndex(String path)
+    {
+        file = new File(path);
+        if(!file.isFile()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if(in.readInt() != MAGIC) {
+                return;
+            }
+            boolean keepStatistics = in.readInt() == Parser.getActionsHash();
+            int count = in.readInt();
+            for(int i=0; i<count; i++) {
+                Entry entry = new Entry();
+                String logPath = in.readUTF();
+                entry.size = in.readLong();
+                entry.modified = in.readLong();
+                entry.log = new LogInfo(new File(logPath), in);
+                if(!keepStatistics) {
+                    entry.log.statistics = null;
+                }
+                entries.put(logPath, entry);
+            }
+        } catch(IOException e) {
+            entries.clear();
+        } finally {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch(Exception e) {}
+            }
+        }
+    }
+
+    /**
+     * Returns the information of a log if it did not change since it was
+     * put into the index.
+     *
+     * @param log   The log file.
+     *
+     * @return The information or null if the log is not in the index or
+     *         it changed.
+     */
+    public synchronized LogInfo get(File log)
+    {
+        Entry entry = entries.get(log.getPath());
+        if(entry == null || entry.size != log.length() || entry.modified != log.lastModified()) {
+            return null;
+        }
+        return entry.log;
+    }
+
+    /**
+     * Puts the information of a log into the index.
+     *
+     * @param log   The information, read from its file just now.
+     */
+    public synchronized void put(LogInfo log)
+    {
+        Entry entry = new Entry();
+        entry.size = log.file.length();
+        entry.modified = log.file.lastModified();
+        entry.log = log;
+        entries.put(log.file.getPath(), entry);
+        changed = true;
+    }
+
+    /**
+     * Removes all logs from the index that are not in a list anymore.
+     *
+     * @param logs  The logs to keep.
+     */
+    public synchronized void retain(List<LogInfo> logs)
+    {
+        HashMap<String, Entry> kept = new HashMap<String, Entry>();
+        for(LogInfo log: logs) {
+            Entry entry = entries.get(log.file.getPath());
+            if(entry != null) {
+                kept.put(log.file.getPath(), entry);
+            }
+        }
+        changed |= kept.size() != entries.size();
+        entries = kept;
+    }
+
+    /**
+     * Writes the index into its file if logs were put into or removed from
+     * it since it was read.
+     */
+    public synchronized void saveIfChanged()
+    {
+        if(changed) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the index into its file. It is written into a temporary file
+     * first, so a crash never leaves a broken index behind.
+     */
+    public synchronized void save()
+    {
+        File tmp = new File(file.getPath()+".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(Parser.getActionsHash());
+            out.writeInt(entries.size());
+            for(Entry entry: entries.values()) {
+                out.writeUTF(entry.log.file.getPath());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                entry.log.write(out);
+            }
+            out.close();
+            out = null;
+            if(!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+                Log.error("cannot write "+file);
+            } else {
+                changed = false;
+            }
+        } catch(IOException e) {
+            Log.error("cannot write "+file);
+        } finally {
+            if(out != null) {
+                try {
+                    out.close();
+                } catch(Exception e) {}
+            }
+        }
+    }
+}
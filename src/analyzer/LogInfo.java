@@ -3,13 +3,15 @@ package analyzer;
 import common.Log;
 import data.Rules;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.BitSet;
 import java.util.Date;
-import java.util.LinkedList;
 
 /**
  * @author: Michel Bartsch
@@ -44,17 +46,23 @@ public class LogInfo
     public Date start;
     /* Duration of the game in seconds (first ready to last finish) */
     public int duration;
-    /* All lines from the log file. */
-    public LinkedList<String> lines = new LinkedList<String>();
+    /* The number of lines in the log file. */
+    public int numberOfLines;
+    /* The lines made undone by an undo, by their index beginning with 0. */
+    public BitSet undone = new BitSet();
     /* If something odd happens while parsing this log, it will be written
      * into this string. */
     public String parseErrors = "";
+    /* The rows of the statistics of this log, null if it was not analyzed
+     * yet. */
+    public String statistics;
     
     
     /**
      * Creates a new LogInfo.
-     * It will read the whole log into a list of strings and launch a parsing
-     * method to collect some basic information.
+     * It will read the log line by line with a parsing method to collect
+     * some basic information. The lines are not kept, the log is read
+     * again when it is parsed for statistics.
      * 
      * @param log   The log file to read and represent.
      */
@@ -63,12 +71,8 @@ public class LogInfo
         file = log;
         BufferedReader br = null;
         try {
-            InputStream inStream = new FileInputStream(log);
-            br = new BufferedReader(new InputStreamReader(inStream, CHARSET));
-            String currentLine;
-            while((currentLine = br.readLine()) != null) {
-                lines.add(currentLine);
-            }
+            br = openReader();
+            Parser.info(this, br);
         } catch(IOException e) {
             Log.error("cannot load "+log);
         }
@@ -79,7 +83,85 @@ public class LogInfo
                 } catch(Exception e) {}
             }
         }
-        Parser.info(this);
+    }
+    
+    /**
+     * Creates a new LogInfo from the information written into a LogIndex
+     * before, without reading the log.
+     * 
+     * @param log   The log file this information belongs to.
+     * @param in    The stream to read the information from.
+     * 
+     * @throws IOException if the information cannot be read.
+     */
+    LogInfo(File log, DataInputStream in) throws IOException
+    {
+        file = log;
+        version = readString(in);
+        String leagueName = readString(in);
+        for(int i=0; i<Rules.LEAGUES.length; i++) {
+            if(Rules.LEAGUES[i].leagueName.equals(leagueName)) {
+                league = Rules.LEAGUES[i];
+            }
+        }
+        keepColors = in.readBoolean();
+        team[0] = readString(in);
+        team[1] = readString(in);
+        long startTime = in.readLong();
+        start = startTime != -1 ? new Date(startTime) : null;
+        duration = in.readInt();
+        numberOfLines = in.readInt();
+        int ranges = in.readInt();
+        for(int i=0; i<ranges; i++) {
+            int from = in.readInt();
+            undone.set(from, in.readInt());
+        }
+        parseErrors = readString(in);
+        statistics = readString(in);
+    }
+    
+    /**
+     * Writes all information into a stream, so it can be read again by
+     * LogInfo(File, DataInputStream).
+     * 
+     * @param out   The stream to write into.
+     * 
+     * @throws IOException if the information cannot be written.
+     */
+    void write(DataOutputStream out) throws IOException
+    {
+        writeString(out, version);
+        writeString(out, league != null ? league.leagueName : null);
+        out.writeBoolean(keepColors);
+        writeString(out, team[0]);
+        writeString(out, team[1]);
+        out.writeLong(start != null ? start.getTime() : -1);
+        out.writeInt(duration);
+        out.writeInt(numberOfLines);
+        int ranges = 0;
+        for(int i = undone.nextSetBit(0); i >= 0; i = undone.nextSetBit(undone.nextClearBit(i))) {
+            ranges++;
+        }
+        out.writeInt(ranges);
+        for(int i = undone.nextSetBit(0); i >= 0; i = undone.nextSetBit(undone.nextClearBit(i))) {
+            out.writeInt(i);
+            out.writeInt(undone.nextClearBit(i));
+        }
+        writeString(out, parseErrors);
+        writeString(out, statistics);
+    }
+    
+    /**
+     * Opens the log file to read it line by line.
+     * 
+     * @return A reader of the log file, which must be closed after use.
+     * 
+     * @throws IOException if the file cannot be opened.
+     */
+    public BufferedReader openReader() throws IOException
+    {
+        InputStream inStream = new FileInputStream(file);
+        return new BufferedReader(new InputStreamReader(inStream, CHARSET));
     }
     
     /**
@@ -155,10 +237,38 @@ public class LogInfo
                 + (keepColors ? "No Color Change" : "Color Change") + GUI.HTML_LF
                 + (start != null ? start : GUI.HTML_RED + start + GUI.HTML_END) + " starting" + GUI.HTML_LF
                 + (isRealDuration() ? duration : GUI.HTML_RED + duration + GUI.HTML_END) + " seconds" + GUI.HTML_LF
-                + (lines.size()-NUM_OF_INFO_ENTRIES) + " actions" + GUI.HTML_LF
+                + (numberOfLines-NUM_OF_INFO_ENTRIES) + " actions" + GUI.HTML_LF
                 + GUI.HTML_RED + parseErrors;
     }
     
+    /**
+     * Writes a string that may be null or longer than writeUTF allows.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        if(s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(CHARSET);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+    
+    /**
+     * Reads a string written by writeString.
+     */
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if(length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+    
     @Override
     public String toString()
     {
@@ -0,0 +1,231 @@
+package analyzer;
+
+import common.Log;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * This class parses the timestamps of the logs and formats them for the
+ * statistics output. It does the same as SimpleDateFormat with the patterns
+ * "yyyy.M.dd-kk.mm.ss" (see Log) and "yyyy-MM-dd kk:mm:ss", but without
+ * creating any objects for most timestamps.
+ *
+ * Converting between the local time and ms since 1970 is only done by a
+ * Calendar once per hour of local time. Hours in which the time zone
+ * changes are left to SimpleDateFormat. As all timestamps of a log are
+ * within a few hours, the beginning of the last hour converted is cached.
+ * Each thread has its own cache, so several threads parsing logs of
+ * different days at once do not replace each other's hour.
+ */
+public class LogTimestamp
+{
+    /* The pattern of the statistics output. */
+    private static final String OUTPUT_PATTERN = "yyyy-MM-dd kk:mm:ss";
+    /* The length of an hour in ms. */
+    private static final long HOUR = 60 * 60 * 1000;
+    /* The number of days of each month in a year that is not a leap year. */
+    private static final int[] DAYS_OF_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    /* The last hour converted by each thread. */
+    private static final ThreadLocal<Hour> cache = new ThreadLocal<Hour>() {
+        @Override
+        protected Hour initialValue()
+        {
+            return new Hour(0, 0, 0, 0, Long.MIN_VALUE);
+        }
+    };
+
+    /**
+     * An hour of local time and when it began.
+     */
+    private static class Hour
+    {
+        final int year;
+        final int month;
+        final int day;
+        final int hour;
+        /* When the hour began in ms since 1970. */
+        final long start;
+
+        Hour(int year, int month, int day, int hour, long start)
+        {
+            this.year = year;
+            this.month = month;
+            this.day = day;
+            this.hour = hour;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Parses a timestamp of a log, for example "2014.7.22-15.04.59".
+     *
+     * @param text  The text containing the timestamp.
+     * @param begin The index where the timestamp begins.
+     * @param end   The index after the timestamp.
+     *
+     * @return The time in ms since 1970.
+     *
+     * @throws ParseException if the text is no valid timestamp.
+     */
+    public static long parse(CharSequence text, int begin, int end) throws ParseException
+    {
+        if(begin < 0 || end > text.length()) {
+            throw new ParseException("Unparseable timestamp", begin);
+        }
+        int[] pos = {begin};
+        int year = parseField(text, pos, end, '.');
+        int month = parseField(text, pos, end, '.');
+        int day = parseField(text, pos, end, '-');
+        int hour = parseField(text, pos, end, '.');
+        int minute = parseField(text, pos, end, '.');
+        int second = parseField(text, pos, end, (char)0);
+        if(hour == 24) {
+            hour = 0;
+        }
+        if(month < 1 || month > 12 || day < 1 || day > getDaysOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw new ParseException("Unparseable timestamp", begin);
+        }
+
+        Hour cached = cache.get();
+        long start;
+        if(cached.year == year && cached.month == month && cached.day == day && cached.hour == hour) {
+            start = cached.start;
+        } else {
+            cached = getHour(new GregorianCalendar(year, month-1, day, hour, 0, 0).getTimeInMillis());
+            if(cached == null || cached.year != year || cached.month != month
+                    || cached.day != day || cached.hour != hour) {
+                // the hour does not exist or is shortened by a change of the time zone
+                return parseSlow(text, begin, end);
+            }
+            start = cached.start;
+        }
+        return start + (minute * 60 + second) * 1000L;
+    }
+
+    /**
+     * Appends a time in the format of the statistics output, for example
+     * "2014-07-22 15:04:59".
+     *
+     * @param millis    The time in ms since 1970.
+     * @param out       The time is appended to this.
+     */
+    public static void format(long millis, StringBuilder out)
+    {
+        Hour cached = cache.get();
+        if(millis < cached.start || millis - cached.start >= HOUR) {
+            Calendar calendar = new GregorianCalendar();
+            calendar.setTimeInMillis(millis);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            cached = getHour(calendar.getTimeInMillis());
+            if(cached == null || millis < cached.start || millis - cached.start >= HOUR) {
+                // the hour is shortened by a change of the time zone
+                formatSlow(millis, out);
+                return;
+            }
+        }
+        int seconds = (int)((millis - cached.start) / 1000);
+        append(out, cached.year, 4).append('-');
+        append(out, cached.month, 2).append('-');
+        append(out, cached.day, 2).append(' ');
+        append(out, cached.hour == 0 ? 24 : cached.hour, 2).append(':');
+        append(out, seconds / 60, 2).append(':');
+        append(out, seconds % 60, 2);
+    }
+
+    /**
+     * Gets the hour of local time beginning at a time and caches it.
+     *
+     * @param start When the hour begins in ms since 1970.
+     *
+     * @return The hour or null if the time zone changes within it or soon
+     *         after, so the local times of the hour may occur twice.
+     */
+    private static Hour getHour(long start)
+    {
+        Calendar calendar = new GregorianCalendar();
+        TimeZone zone = calendar.getTimeZone();
+        calendar.setTimeInMillis(start);
+        if(calendar.get(Calendar.MINUTE) != 0 || calendar.get(Calendar.SECOND) != 0
+                || zone.getOffset(start) != zone.getOffset(start + 2 * HOUR)) {
+            return null;
+        }
+        Hour hour = new Hour(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH)+1,
+                calendar.get(Calendar.DAY_OF_MONTH), calendar.get(Calendar.HOUR_OF_DAY), start);
+        calendar.setTimeInMillis(start + HOUR - 1);
+        if(calendar.get(Calendar.HOUR_OF_DAY) != hour.hour || calendar.get(Calendar.MINUTE) != 59) {
+            return null;
+        }
+        cache.set(hour);
+        return hour;
+    }
+
+    /**
+     * Parses the digits of a field up to its separator.
+     *
+     * @param text      The text containing the field.
+     * @param pos       The index where the field begins, it is moved behind
+     *                  the separator.
+     * @param end       The index after the timestamp.
+     * @param separator The character after the field, 0 if it ends at end.
+     *
+     * @return The value of the field.
+     */
+    private static int parseField(CharSequence text, int[] pos, int end, char separator) throws ParseException
+    {
+        int i = pos[0];
+        int value = 0;
+        while(i < end && text.charAt(i) != separator) {
+            char c = text.charAt(i);
+            if(c < '0' || c > '9' || i - pos[0] >= 9) {
+                throw new ParseException("Unparseable timestamp", i);
+            }
+            value = value * 10 + (c - '0');
+            i++;
+        }
+        if(i == pos[0] || (separator != 0 && i == end)) {
+            throw new ParseException("Unparseable timestamp", i);
+        }
+        pos[0] = i + 1;
+        return value;
+    }
+
+    private static int getDaysOfMonth(int year, int month)
+    {
+        if(month == 2 && ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0)) {
+            return 29;
+        }
+        return DAYS_OF_MONTH[month-1];
+    }
+
+    private static long parseSlow(CharSequence text, int begin, int end) throws ParseException
+    {
+        SimpleDateFormat format = (SimpleDateFormat)Log.timestampFormat.clone();
+        return format.parse(text.subSequence(begin, end).toString()).getTime();
+    }
+
+    private static void formatSlow(long millis, StringBuilder out)
+    {
+        out.append(new SimpleDateFormat(OUTPUT_PATTERN).format(new Date(millis)));
+    }
+
+    /**
+     * Appends a number with leading zeros.
+     */
+    private static StringBuilder append(StringBuilder out, int value, int digits)
+    {
+        for(int limit = 10; digits > 1; digits--, limit *= 10) {
+            if(value < limit) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
+    }
+}
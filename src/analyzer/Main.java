@@ -1,8 +1,17 @@
 package analyzer;
 
+import common.Log;
 import java.io.File;
 import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author: Michel Bartsch
@@ -16,13 +25,21 @@ public class Main
     public final static String PATH = "logs";
     /* Path where dropped logs will be moved to by the clean feature. */
     public final static String PATH_DROPPED = "logs/dropped";
+    /* Path of the index of all logs read before. */
+    public final static String PATH_INDEX = "logs/analyzer.idx";
+    /* The number of threads the logs are analyzed with, one per core. */
+    public final static int THREADS = Runtime.getRuntime().availableProcessors();
     
     /* List of all logs */
     public static LinkedList<LogInfo> logs;
+    /* The logs read before, so they need not be parsed again. */
+    public static LogIndex index;
     /* The output file to write the statistics into.*/
     public static File stats;
     /* Use this to write into the output file. */
     public static FileWriter writer;
+    /* How long the last parallel run took and how much faster it was. */
+    public static String report = "";
     
     /**
      * The programm starts here.
@@ -37,17 +54,103 @@ public class Main
     
     /**
      * Loads all the logs, can be used at the beginning and to update
-     * the list as well.
+     * the list as well. Other files in the directory, like the journals,
+     * are skipped. Only logs that are new or changed since they were put
+     * into the index are parsed.
      */
     public static void load()
     {
-        logs = new LinkedList<LogInfo>();
+        if(index == null) {
+            index = new LogIndex(PATH_INDEX);
+        }
+        List<Callable<LogInfo>> tasks = new ArrayList<Callable<LogInfo>>();
+        List<LogInfo> cached = new ArrayList<LogInfo>();
         File dir = new File(PATH);
         File[] files = dir.listFiles();
-        for(File file: files) {
-            if(file.isFile()) {
-                logs.add(new LogInfo(file));
+        for(final File file: files) {
+            if(file.isFile() && file.getName().endsWith(".txt")) {
+                LogInfo log = index.get(file);
+                cached.add(log);
+                if(log == null) {
+                    tasks.add(new Callable<LogInfo>() {
+                        @Override
+                        public LogInfo call() {
+                            return new LogInfo(file);
+                        }
+                    });
+                }
+            }
+        }
+        Iterator<LogInfo> parsed = runParallel(tasks, "Loaded").iterator();
+        LinkedList<LogInfo> loaded = new LinkedList<LogInfo>();
+        for(LogInfo log: cached) {
+            if(log == null) {
+                log = parsed.next();
+                if(log != null) {
+                    index.put(log);
+                }
+            }
+            if(log != null) {
+                loaded.add(log);
             }
         }
+        logs = loaded;
+        index.retain(logs);
+        index.saveIfChanged();
+    }
+    
+    /**
+     * Runs tasks in parallel, one thread per core, and waits until all of
+     * them are done. How long it took is put into the report and printed.
+     * The speedup is the time all tasks took together divided by the time
+     * it took to run them in parallel.
+     * 
+     * @param tasks     The tasks to run.
+     * @param what      What the tasks do, the beginning of the report.
+     * 
+     * @return The results of the tasks in the same order as the tasks,
+     *         null for each task that failed.
+     */
+    public static <T> List<T> runParallel(List<Callable<T>> tasks, String what)
+    {
+        long start = System.nanoTime();
+        final long[] busy = new long[1];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for(final Callable<T> task: tasks) {
+            futures.add(executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    long taskStart = System.nanoTime();
+                    try {
+                        return task.call();
+                    } finally {
+                        synchronized(busy) {
+                            busy[0] += System.nanoTime() - taskStart;
+                        }
+                    }
+                }
+            }));
+        }
+        List<T> results = new ArrayList<T>(tasks.size());
+        for(Future<T> future: futures) {
+            try {
+                results.add(future.get());
+            } catch(InterruptedException e) {
+                results.add(null);
+            } catch(ExecutionException e) {
+                Log.error("error while analyzing: "+e.getCause());
+                results.add(null);
+            }
+        }
+        executor.shutdown();
+        long elapsed = System.nanoTime() - start;
+        synchronized(busy) {
+            report = String.format("%s %d logs in %d ms with %d threads, speedup %.1f",
+                    what, tasks.size(), elapsed / 1000000, THREADS,
+                    elapsed == 0 ? 1.0 : (double)busy[0] / elapsed);
+        }
+        System.out.println(report);
+        return results;
     }
 }
\ No newline at end of file
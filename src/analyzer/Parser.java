@@ -2,9 +2,16 @@ package analyzer;
 
 import common.Log;
 import data.Rules;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 
 /**
@@ -14,14 +21,8 @@ import java.util.Date;
  */
 public class Parser
 {
-    /* This prefix will be placed at the beginning of every logInfo´s log line,
-     which was made undone by an undo*/
-    private static final String UNDONE_PREFIX = "<undone>";
     /* The seperator used for the output within a row. */
     private static final String OUT_SEP = ",";
-    /* The output´s date format (date-time) */
-    public static final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd kk:mm:ss");
-    
     /* All the actions that would cause the teams to change colors */
     private static final String[] colorChangeActions = {
         "1st Half",
@@ -31,61 +32,96 @@ public class Parser
     };
     
     /*
-     * All the actions to extract from the logs into statistics.
-     * If there are actions which are not prefix-free, the longer
-     * action´s string must be first. For example "Playing with Hands"
-     * for "Playing".
+     * The file the actions to extract are read from, one per line, relative
+     * to the working directory like the other config files. A copy of
+     * resources/config/actions.cfg is also packed into the jar and used if
+     * the file does not exist. If there are actions which are not
+     * prefix-free, the longest one that matches is taken, for example
+     * "Playing with Hands" instead of "Playing".
      */
-    private static final String[] actions = {
-        "Manually Penalised",
-        "Dropped Ball",
-        "Kickoff Goal",
-        "Global Game Stuck",
-        "Goal for Team",
-        "Goal decrease for Team",
-        "Out by",
-        "Substituted by Player",
-        "Timeout",
-        "Illegal Attack",
-        "Ball Manipulation",
-        "Illegal Defender",
-        "Illegal Defense",
-        "Fallen Robot",
-        "Playing with Hands",
-        "Ball Holding",
-        "Inactive Player",
-        "Leaving the Field",
-        "Request for PickUp",
-        "Request for Service",
-        "Additional Request for Service",
-        "Player Pushing",
-        "Substitute Player",
-        "Finished",
-        "Initial",
-        "Playing",
-        "Ready",
-        "Set"
-    };
+    private static final String ACTIONS_CONFIG = "config/actions.cfg";
+    /* The charset to read the actions file. */
+    private static final String CHARSET = "UTF-8";
+    
+    /* All the actions to extract from the logs into statistics. */
+    private static final String[] actions = loadActions();
     
     
+    /**
+     * Reads the actions to extract from the actions file, or from the copy
+     * in the jar if there is no such file. Empty lines and lines beginning
+     * with "#" are ignored. The analyzer cannot work without them, so it is
+     * terminated if neither can be read.
+     * 
+     * @return The actions.
+     */
+    private static String[] loadActions()
+    {
+        ArrayList<String> loaded = new ArrayList<String>();
+        BufferedReader br = null;
+        try {
+            InputStream in;
+            if(new File(ACTIONS_CONFIG).isFile()) {
+                in = new FileInputStream(ACTIONS_CONFIG);
+            } else {
+                in = Parser.class.getResourceAsStream("/"+ACTIONS_CONFIG);
+                if(in == null) {
+                    throw new FileNotFoundException(ACTIONS_CONFIG);
+                }
+            }
+            br = new BufferedReader(new InputStreamReader(in, CHARSET));
+            String line;
+            while((line = br.readLine()) != null) {
+                if(line.length() > 0 && !line.startsWith("#")) {
+                    loaded.add(line);
+                }
+            }
+        } catch(IOException e) {
+            Log.error("cannot load "+ACTIONS_CONFIG);
+            System.exit(1);
+        } finally {
+            if(br != null) {
+                try {
+                    br.close();
+                } catch(Exception e) {}
+            }
+        }
+        return loaded.toArray(new String[loaded.size()]);
+    }
+    
+    /**
+     * Returns a hash of the actions to extract. Statistics extracted with
+     * other actions must not be used anymore.
+     * 
+     * @return The hash.
+     */
+    public static int getActionsHash()
+    {
+        return Arrays.hashCode(actions);
+    }
+    
      /**
-     * Parsing a log to get some information and place the undone-prefix,
+     * Parsing a log to get some information and mark the lines made undone,
      * so this is needded before parsing for statistics. The information
      * will be written into the LogInfo instance.
      * 
      * @param log   The log to parse.
+     * @param lines The lines of the log to be read one by one.
+     * 
+     * @throws IOException if the lines cannot be read.
      */
-    public static void info(LogInfo log)
+    public static void info(LogInfo log, BufferedReader lines) throws IOException
     {
-        Date kickoffTime = null;
-        Date endTime = null;
+        long kickoffTime = -1;
+        long endTime = -1;
         int i = 0;
-        for(String line: log.lines) {
+        String line;
+        while((line = lines.readLine()) != null) {
             i++;
             int divPos = line.indexOf(": ");
-            Date time = null;
+            long time = -1;
             try{
-                time = Log.timestampFormat.parse(line.substring(0, divPos));
+                time = LogTimestamp.parse(line, 0, divPos);
             } catch(ParseException e) {
                 log.parseErrors += "error in line "+i+": Cannot parse timestamp" + GUI.HTML_LF;
             }
@@ -108,9 +144,7 @@ public class Parser
                     log.parseErrors += "error in line "+i+": cannot parse undo";
                 } else {
                     int undos = Integer.valueOf(splitted[1]);
-                    for(int j=0; j<undos; j++) {
-                        log.lines.set(i-2-j, UNDONE_PREFIX+log.lines.get(i-2-j));
-                    }
+                    log.undone.set(Math.max(0, i-1-undos), i-1);
                 }
             } else if(action.contains(" vs ")) {
                 String[] teams = action.split(" vs ");
@@ -120,30 +154,29 @@ public class Parser
                 } else {
                     log.parseErrors += "error in line "+i+": Found vs but not 2 teams" + GUI.HTML_LF;
                 }
-            } else if( (kickoffTime == null) && (action.startsWith("Ready")) ) {
+            } else if( (kickoffTime == -1) && (action.startsWith("Ready")) ) {
                 kickoffTime = time;
             } else if(action.startsWith("Finished")) {
                 endTime = time;
             }
         }
-        log.start = kickoffTime;
-        if( (kickoffTime != null) && (endTime != null) ) {
-            log.duration = (int)((endTime.getTime()-kickoffTime.getTime())/1000);
+        log.numberOfLines = i;
+        log.start = kickoffTime != -1 ? new Date(kickoffTime) : null;
+        if( (kickoffTime != -1) && (endTime != -1) ) {
+            log.duration = (int)((endTime-kickoffTime)/1000);
         }
     }
     
     /**
-     * Parsing a log to write all statistics from it into a file. The file
-     * is set in the main class.
+     * Parsing a log to get all statistics from it. Several logs may be
+     * parsed at once by different threads.
      * 
      * @param log   The log to parse.
+     * 
+     * @return The rows of the statistics output file for this log.
      */
-    public static void statistic(LogInfo log)
+    public static String statistic(LogInfo log)
     {
-        Date rawTime;
-        String time;
-        String raw, action = "";
-        String team;
         String[] teams = new String[2];
         if(log.team.length >= 2) {
             teams[0] = log.team[0];
@@ -153,59 +186,76 @@ public class Parser
             teams[1] = "unknown";
         }
         
+        StringBuilder out = new StringBuilder();
+        BufferedReader lines;
+        try {
+            lines = log.openReader();
+        } catch(IOException e) {
+            Log.error("cannot load "+log.file);
+            return "";
+        }
+        try {
+            statistic(log, lines, teams, out);
+        } catch(IOException e) {
+            Log.error("cannot load "+log.file);
+        } finally {
+            try {
+                lines.close();
+            } catch(IOException e) {}
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Parsing the lines of a log to get all statistics from it, skipping
+     * the lines that were made undone.
+     * 
+     * @param log   The log to parse.
+     * @param lines The lines of the log to be read one by one.
+     * @param teams The teams` names, in the order of the first half.
+     * @param out   The rows of the statistics are appended to this.
+     * 
+     * @throws IOException if the lines cannot be read.
+     */
+    private static void statistic(LogInfo log, BufferedReader lines, String[] teams, StringBuilder out) throws IOException
+    {
+        ActionMatcher matcher = new ActionMatcher(actions, colorChangeActions, log.league.teamColorName);
+        long time;
+        String raw, action;
+        String team;
         int i=0;
-        for(String line: log.lines) {
+        String line;
+        while((line = lines.readLine()) != null) {
             i++;
-            if(line.startsWith(UNDONE_PREFIX)) {
+            if(log.undone.get(i-1)) {
                 continue;
             }
             int divPos = line.indexOf(": ")+2;
             try{
-                rawTime = Log.timestampFormat.parse(line.substring(0, divPos-2));
+                time = LogTimestamp.parse(line, 0, divPos-2);
             } catch(ParseException e) {
                 Log.error("Cannot parse time in line "+i+" of "+log.file);
                 return;
             }
             raw = line.substring(divPos);
             
-            time = timeFormat.format(rawTime);
-            
-            if(!log.keepColors) {
-                for(String ca: colorChangeActions) {
-                    if(raw.startsWith(ca)) {
-                        String tmp = teams[0];
-                        teams[0] = teams[1];
-                        teams[1] = tmp;
-                        break;
-                    }
-                }
+            matcher.match(raw);
+            if(!log.keepColors && matcher.isColorChange()) {
+                String tmp = teams[0];
+                teams[0] = teams[1];
+                teams[1] = tmp;
             }
             
-            boolean actionMatch = false;
-            for(String a: actions) {
-                if(raw.startsWith(a)) {
-                    action = a;
-                    actionMatch = true;
-                    break;
-                }
-            }
-            if(!actionMatch) {
+            action = matcher.getAction();
+            if(action == null) {
                 continue;
             }
             
-            if(raw.contains(log.league.teamColorName[0])) {
-                team = teams[0];
-            } else if(raw.contains(log.league.teamColorName[1])) {
-                team = teams[1];
-            } else {
-                team = "";
-            }
+            team = matcher.getTeamColor() == -1 ? "" : teams[matcher.getTeamColor()];
             
-            try{
-                Main.writer.write(time+OUT_SEP+action+OUT_SEP+team+OUT_SEP+teams[0]+OUT_SEP+teams[1]+"\n");
-            } catch(IOException e) {
-                Log.error("cannot write to file "+Main.stats);
-            }
+            LogTimestamp.format(time, out);
+            out.append(OUT_SEP).append(action).append(OUT_SEP).append(team)
+                    .append(OUT_SEP).append(teams[0]).append(OUT_SEP).append(teams[1]).append("\n");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package common;
+
+
+/**
+ * This class provides ticks on a fixed grid, based on the monotonic
+ * System.nanoTime(). In contrast to sleeping a fixed time after each tick,
+ * the time needed to process a tick does not add up, so the rate does not
+ * drift. If a tick is missed completely, because the thread was blocked for
+ * longer than a period, it is skipped instead of being caught up.
+ *
+ * How late each tick was is recorded in a histogram, to be able to check
+ * the timing on a loaded machine.
+ *
+ * The ticks are meant to be used by one thread only, but the histogram may
+ * be read from any thread.
+ */
+public class Heartbeat
+{
+    /** The number of buckets in the jitter histogram, 1 ms each. */
+    public static final int JITTER_BUCKETS = 32;
+
+    /** The time between two ticks in ns. */
+    private final long period;
+    /** When the next tick is due (ns). */
+    private long nextTick;
+    /** How many ticks were late by 0, 1, 2, ... ms. The last bucket counts all later ones. */
+    private final long[] jitter = new long[JITTER_BUCKETS];
+    /** How many ticks were skipped. */
+    private long skipped;
+
+
+    /**
+     * Creates a new Heartbeat. The first tick is due right away.
+     *
+     * @param periodInMillis    The time between two ticks in ms.
+     */
+    public Heartbeat(int periodInMillis)
+    {
+        period = periodInMillis * 1000000L;
+        nextTick = System.nanoTime();
+    }
+
+    /**
+     * Returns how long it takes until the next tick is due.
+     *
+     * @return The time in ns. It is 0 or negative if the tick is due.
+     */
+    public long getNanosUntilNextTick()
+    {
+        return nextTick - System.nanoTime();
+    }
+
+    /**
+     * Blocks until the next tick is due and then performs it.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void waitForNextTick() throws InterruptedException
+    {
+        long wait;
+        while((wait = getNanosUntilNextTick()) > 0) {
+            Thread.sleep(wait / 1000000L, (int)(wait % 1000000L));
+        }
+        tick();
+    }
+
+    /**
+     * Performs the tick that is due, i.e. records how late it is and moves
+     * on to the next one on the grid. Should only be called when the tick
+     * is due.
+     */
+    public void tick()
+    {
+        long now = System.nanoTime();
+        int late = (int)Math.min(JITTER_BUCKETS - 1, Math.max(0, (now - nextTick) / 1000000L));
+        nextTick += period;
+        int missed = 0;
+        while(nextTick <= now) {
+            nextTick += period;
+            missed++;
+        }
+        synchronized(jitter) {
+            jitter[late]++;
+            skipped += missed;
+        }
+    }
+
+    /**
+     * Returns the jitter histogram.
+     *
+     * @return How many ticks were late by 0, 1, 2, ... ms. The last entry
+     *         counts all ticks that were at least JITTER_BUCKETS-1 ms late.
+     */
+    public long[] getJitterHistogram()
+    {
+        synchronized(jitter) {
+            return jitter.clone();
+        }
+    }
+
+    /**
+     * Returns how many ticks were skipped, because the thread was blocked
+     * for longer than a period.
+     *
+     * @return The number of skipped ticks.
+     */
+    public long getSkippedTicks()
+    {
+        synchronized(jitter) {
+            return skipped;
+        }
+    }
+
+    /**
+     * Writes all buckets of the jitter histogram that are not empty and
+     * the number of skipped ticks into a string.
+     *
+     * @return For example "0ms:1200 1ms:30 >=31ms:1 skipped:0".
+     */
+    @Override
+    public String toString()
+    {
+        long[] histogram = getJitterHistogram();
+        String out = "";
+        for(int i=0; i<histogram.length; i++) {
+            if(histogram[i] != 0) {
+                out += (i == histogram.length-1 ? ">=" : "")+i+"ms:"+histogram[i]+" ";
+            }
+        }
+        return out+"skipped:"+getSkippedTicks();
+    }
+}
@@ -0,0 +1,387 @@
+package common;
+
+import data.AdvancedData;
+import data.Rules;
+import data.StateVector;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+
+/**
+ * This class writes every change of the timeline into a binary file, so
+ * the timeline and the current state of the game can be restored if the
+ * GameController crashed.
+ *
+ * The file is mapped into memory, so a record is in the operating system`s
+ * hands as soon as it was written, even if the process dies right after.
+ * It begins with a header and is followed by the records. A state is stored
+ * as the fields that changed since the state of the record before (see
+ * StateVector). An undo is stored as the number of states gone back and the
+ * time the timeline was moved by. A record begins with its type, which is
+ * written last. So the file ends at the first type that is 0, even if a
+ * record was not written completely. A record is always followed by a 0,
+ * so the rest of a record that was torn by a crash is not taken for further
+ * records when the journal is continued after it. When the journal is
+ * closed, it is cut after its last record.
+ */
+public class Journal
+{
+    /** The first bytes of each journal. */
+    private static final int MAGIC = 0x47434a31; // "GCJ1"
+    /** The types of records. */
+    private static final byte END = 0;
+    private static final byte STATE = 1;
+    private static final byte UNDO = 2;
+    /** The size by which the mapped part of the file grows. */
+    private static final int CHUNK_SIZE = 1 << 20;
+    /** The charset of messages and the league. */
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /** The file. */
+    private final RandomAccessFile file;
+    /** The mapped part of the file records are written into. */
+    private MappedByteBuffer mapped;
+    /** The position within the file where the mapped part begins. */
+    private long mappedStart;
+    /** The record that is written. */
+    private ByteBuffer record = ByteBuffer.allocate(1024);
+    /** The state of the last record, the next one is stored relative to it. */
+    private final long[] lastVector = new long[StateVector.getLength()];
+    /** The state of the new record. */
+    private final long[] vector = new long[StateVector.getLength()];
+
+
+    /**
+     * Opens a journal to append records. If the file already exists, all of
+     * its records are replayed into the given timeline first.
+     *
+     * @param path      The path of the journal.
+     * @param timeline  The timeline the records of an existing journal are
+     *                  replayed into. It should be empty. May be null to not
+     *                  replay anything.
+     *
+     * @throws IOException if the file cannot be written or it exists but is
+     *         not a journal of the current league.
+     */
+    public Journal(String path, Timeline timeline) throws IOException
+    {
+        file = new RandomAccessFile(new File(path), "rw");
+        if(file.length() == 0) {
+            record.clear();
+            record.putInt(MAGIC);
+            putString(record, Rules.league.leagueDirectory);
+            record.putInt(vector.length);
+            record.flip();
+            map(0, record.remaining());
+            mapped.put(record);
+        } else {
+            MappedByteBuffer existing = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            long end;
+            try {
+                String league = readHeader(existing);
+                int length;
+                try {
+                    length = existing.getInt();
+                } catch(BufferUnderflowException e) {
+                    throw new IOException(path+" is not a journal");
+                }
+                if(!league.equals(Rules.league.leagueDirectory) || length != vector.length) {
+                    throw new IOException(path+" is not a journal of league "+Rules.league.leagueDirectory);
+                }
+                end = replay(existing, timeline);
+            } catch(IOException e) {
+                file.close();
+                throw e;
+            } finally {
+                unmap(existing);
+            }
+            map(end, 0);
+        }
+    }
+
+    /**
+     * Reads the league a journal was written in, which must be selected
+     * before the journal can be opened.
+     *
+     * @param path  The path of the journal.
+     *
+     * @return The directory of the league.
+     *
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public static String readLeague(String path) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(new File(path), "r");
+        MappedByteBuffer buffer = null;
+        try {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            return readHeader(buffer);
+        } finally {
+            if(buffer != null) {
+                unmap(buffer);
+            }
+            file.close();
+        }
+    }
+
+    /**
+     * Writes a state that was put into the timeline.
+     *
+     * @param when      When it happened in ms.
+     * @param data      The state.
+     * @param message   The message attached to the state.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void state(long when, AdvancedData data, String message) throws IOException
+    {
+        StateVector.encode(data, vector);
+        byte[] text = message.getBytes(CHARSET);
+        int changed = 0;
+        for(int i=0; i<vector.length; i++) {
+            if(vector[i] != lastVector[i]) {
+                changed++;
+            }
+        }
+        ensureRecordCapacity(1 + 8 + 4 + text.length + 2 + changed * 10);
+        record.put(END);
+        record.putLong(when);
+        record.putInt(text.length);
+        record.put(text);
+        record.putShort((short)changed);
+        for(int i=0; i<vector.length; i++) {
+            if(vector[i] != lastVector[i]) {
+                record.putShort((short)i);
+                record.putLong(vector[i]);
+                lastVector[i] = vector[i];
+            }
+        }
+        write(STATE);
+    }
+
+    /**
+     * Writes an undo.
+     *
+     * @param when      When it happened in ms.
+     * @param states    How many states were removed from the timeline.
+     * @param shift     How far the timeline was moved in ms.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void undo(long when, int states, long shift) throws IOException
+    {
+        ensureRecordCapacity(1 + 8 + 4 + 8);
+        record.put(END);
+        record.putLong(when);
+        record.putInt(states);
+        record.putLong(shift);
+        write(UNDO);
+    }
+
+    /**
+     * Writes everything to the disk, cuts the file after the last record
+     * and closes the journal.
+     *
+     * @throws IOException if an error occurred while trying to close the file.
+     */
+    public void close() throws IOException
+    {
+        try {
+            mapped.force();
+            long length = mappedStart + mapped.position();
+            // a file cannot be shortened on all systems while it is mapped
+            unmap(mapped);
+            mapped = null;
+            file.setLength(length);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Reads the header up to the league.
+     *
+     * @param buffer    The content of the file.
+     *
+     * @return The directory of the league.
+     *
+     * @throws IOException if the file is not a journal.
+     */
+    private static String readHeader(ByteBuffer buffer) throws IOException
+    {
+        try {
+            if(buffer.getInt() != MAGIC) {
+                throw new IOException("not a journal");
+            }
+            int length = buffer.getInt();
+            if(length < 0 || length > buffer.remaining()) {
+                throw new IOException("not a journal");
+            }
+            byte[] league = new byte[length];
+            buffer.get(league);
+            return new String(league, CHARSET);
+        } catch(BufferUnderflowException e) {
+            throw new IOException("not a journal");
+        }
+    }
+
+    /**
+     * Replays all records into a timeline. The journal ends at the first
+     * record that is incomplete or invalid.
+     *
+     * @param buffer    The content of the file, positioned at the first record.
+     * @param timeline  The timeline to replay into, may be null.
+     *
+     * @return The position where the next record is to be written.
+     */
+    private long replay(ByteBuffer buffer, Timeline timeline)
+    {
+        long end = buffer.position();
+        try {
+            while(buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if(type == STATE) {
+                    buffer.getLong();
+                    int length = buffer.getInt();
+                    if(length < 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    byte[] text = new byte[length];
+                    buffer.get(text);
+                    int changed = buffer.getShort();
+                    if(changed < 0 || changed > vector.length) {
+                        break;
+                    }
+                    // decoded into vector first, so an invalid record changes nothing
+                    System.arraycopy(lastVector, 0, vector, 0, vector.length);
+                    boolean valid = true;
+                    for(int i=0; i<changed && valid; i++) {
+                        int index = buffer.getShort();
+                        valid = index >= 0 && index < vector.length;
+                        if(valid) {
+                            vector[index] = buffer.getLong();
+                        }
+                    }
+                    if(!valid) {
+                        break;
+                    }
+                    System.arraycopy(vector, 0, lastVector, 0, vector.length);
+                    if(timeline != null) {
+                        timeline.add(lastVector, new String(text, CHARSET));
+                    }
+                } else if(type == UNDO) {
+                    buffer.getLong();
+                    int states = buffer.getInt();
+                    long shift = buffer.getLong();
+                    if(states < 0) {
+                        break;
+                    }
+                    if(timeline != null) {
+                        for(int i=0; i<states && timeline.size() > 1; i++) {
+                            timeline.removeLatest();
+                        }
+                        timeline.shift(shift);
+                    }
+                } else {
+                    break;
+                }
+                end = buffer.position();
+            }
+        } catch(BufferUnderflowException e) {
+            // the last record is incomplete
+        }
+        return end;
+    }
+
+    /**
+     * Clears the record and makes sure it can hold a number of bytes.
+     */
+    private void ensureRecordCapacity(int size)
+    {
+        if(record.capacity() < size) {
+            record = ByteBuffer.allocate(Math.max(size, 2 * record.capacity()));
+        }
+        record.clear();
+    }
+
+    /**
+     * Writes the record into the file. Its type is written last, so it is
+     * not read before it is complete.
+     *
+     * @param type  The type of the record.
+     */
+    private void write(byte type) throws IOException
+    {
+        record.flip();
+        // one more byte for the end of the journal
+        if(mapped.remaining() < record.remaining() + 1) {
+            map(mappedStart + mapped.position(), record.remaining() + 1);
+        }
+        int start = mapped.position();
+        mapped.put(record);
+        mapped.put(mapped.position(), END);
+        mapped.put(start, type);
+    }
+
+    /**
+     * Maps the part of the file that is written next.
+     *
+     * @param position  Where in the file the part begins.
+     * @param size      How many bytes are needed at least.
+     */
+    private void map(long position, int size) throws IOException
+    {
+        MappedByteBuffer previous = mapped;
+        mapped = file.getChannel().map(FileChannel.MapMode.READ_WRITE, position, Math.max(size, CHUNK_SIZE));
+        mappedStart = position;
+        if(previous != null) {
+            unmap(previous);
+        }
+    }
+
+    /**
+     * Releases a mapping right away instead of when it is garbage collected.
+     * Java has no public method for this, so it is done through the
+     * internal one of the runtime if available. The buffer must not be
+     * used anymore afterwards.
+     *
+     * @param buffer    The mapped buffer.
+     */
+    private static void unmap(MappedByteBuffer buffer)
+    {
+        try {
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch(NoSuchMethodException e) {
+                Method getCleaner = buffer.getClass().getMethod("cleaner");
+                getCleaner.setAccessible(true);
+                Object cleaner = getCleaner.invoke(buffer);
+                if(cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch(Exception e) {
+            // the mapping is released when the buffer is garbage collected
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String s)
+    {
+        byte[] bytes = s.getBytes(CHARSET);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+}
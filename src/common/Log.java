@@ -2,13 +2,21 @@ package common;
 
 import controller.EventHandler;
 import controller.Main;
+import controller.action.ActionBoard;
 import data.AdvancedData;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -19,26 +27,68 @@ import java.util.LinkedList;
  * At the end of an actions the Log should be used to add a state into the
  * timeline, that is provided by this class too.
  * 
+ * The lines are not written by the thread logging them, but put into a
+ * queue. A writer thread takes all lines queued so far and writes them at
+ * once, so logging never waits for the disk. If the queue is full, because
+ * the disk does not keep up at all, lines are dropped and it is logged how
+ * many.
+ * 
  * This class is a singleton!
  */
 public class Log
 {
+    /**
+     * When the log file is synced to the disk. Without syncing, the lines
+     * are only handed over to the operating system.
+     */
+    public enum Sync
+    {
+        /** Never, this is the default. */
+        NONE,
+        /** After each batch of lines written. */
+        BATCH,
+        /** After a batch of lines, but at most once every SYNC_PERIOD. */
+        PERIODIC
+    }
+    
+    /** How many lines may wait to be written. */
+    private static final int QUEUE_CAPACITY = 4096;
+    /** The time in millis between two syncs with Sync.PERIODIC. */
+    private static final long SYNC_PERIOD = 1000;
+    /** The pattern of timestamps. */
+    private static final String TIMESTAMP_PATTERN = "yyyy.M.dd-kk.mm.ss";
+    
     /** The instance of the singleton. */
     private static Log instance = new Log();;
     
     /** The file to write into. */
-    private FileWriter file;
+    private FileOutputStream file;
+    /** The lines to be written into the file, each with its timestamp. */
+    private final BlockingQueue<Line> lines = new ArrayBlockingQueue<Line>(QUEUE_CAPACITY);
+    /** How many lines were dropped, because the queue was full. */
+    private final AtomicInteger dropped = new AtomicInteger();
+    /** The thread writing the lines into the file. */
+    private LineWriter writer;
     /** The error-file to write into. */
     private FileWriter errorFile;
     /** The file to write into. */
     private String errorPath = "error.txt";
-    /** The timeline. */
-    private LinkedList<AdvancedData> states = new LinkedList<AdvancedData>();
+    /** Locked while writing into the error-file. */
+    private final Object errorLock = new Object();
+    /** The timeline, as far as it can be undone. */
+    private Timeline states = new Timeline(ActionBoard.MAX_NUM_UNDOS_AT_ONCE);
+    /** The journal every change of the timeline is written into, if any. */
+    private Journal journal;
     /** If != null, the next log entry will use this message. */ 
     private String message = null;
     
-    /** The format of timestamps. */
-    public static final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy.M.dd-kk.mm.ss");
+    /**
+     * The format of timestamps. A SimpleDateFormat must not be used by
+     * several threads at once, so the Log itself does not use this one.
+     */
+    public static final SimpleDateFormat timestampFormat = new SimpleDateFormat(TIMESTAMP_PATTERN);
+    /** The format of timestamps in the error-file, only used with errorLock locked. */
+    private final SimpleDateFormat errorTimestampFormat = new SimpleDateFormat(TIMESTAMP_PATTERN);
     
     /**
      * Creates a new Log.
@@ -47,35 +97,71 @@ public class Log
     
     /**
      * Must be called once at the very beginning to allow Log to work.
+     * The log file is never synced to the disk.
      * 
      * @param path  The path where the log-file should be created.
      */
-    public synchronized static void init(String path)
+    public static void init(String path)
     {
-        if (instance.file != null) {
+        init(path, Sync.NONE);
+    }
+    
+    /**
+     * Must be called once at the very beginning to allow Log to work.
+     * 
+     * @param path  The path where the log-file should be created.
+     * @param sync  When the log-file is synced to the disk.
+     */
+    public synchronized static void init(String path, Sync sync)
+    {
+        if (instance.writer != null) {
             throw new IllegalStateException("logger already initialized");
         }
         try{
-            instance.file = new FileWriter(new File(path));
+            instance.file = new FileOutputStream(new File(path));
         } catch(IOException e) {
             error("cannot write to logfile "+path);
         }
+        instance.writer = instance.new LineWriter(sync);
+        instance.writer.start();
         toFile(Main.version);
     }
     
+    /**
+     * Opens a journal that every change of the timeline is written into
+     * from now on. If the journal already exists, the timeline is restored
+     * from it and new changes are appended. This must be called before
+     * the first state is put into the timeline.
+     * 
+     * @param path  The path of the journal.
+     * 
+     * @return The latest state restored from the journal, or null if it
+     *         did not exist or was empty.
+     */
+    public synchronized static AdvancedData openJournal(String path)
+    {
+        if(instance.journal != null) {
+            throw new IllegalStateException("journal already opened");
+        }
+        try {
+            instance.journal = new Journal(path, instance.states);
+        } catch(IOException e) {
+            error("cannot open journal "+path+": "+e.getMessage());
+        }
+        return instance.states.size() > 0 ? instance.states.get(0) : null;
+    }
+    
     /**
      * Simply writes a line, beginning with a timestamp, in the file.
      * May be used to log something that should not be in the timeline.
+     * The line is written later by another thread, so this never blocks.
      * 
      * @param s     The string to be written in the file.
      */
     public static void toFile(String s)
     {
-        try{
-            instance.file.write(instance.timestampFormat.format(new Date(System.currentTimeMillis()))+": "+s+"\n");
-            instance.file.flush();
-        } catch(IOException e) {
-            error("cannot write to logfile!");
+        if(!instance.lines.offer(new Line(System.currentTimeMillis(), s))) {
+            instance.dropped.incrementAndGet();
         }
     }
     
@@ -86,13 +172,13 @@ public class Log
      * action calls another action to perform its task.
      * @param message The message that will be used for the next log entry.
      */
-    public static void setNextMessage(String message)
+    public synchronized static void setNextMessage(String message)
     {
         instance.message = message;
     }
     
     /**
-     * Puts a copy of the given data into the timeline, attaching the message
+     * Puts the given data into the timeline, attaching the message
      * to it and writing it to the file using toFile method.
      * This should be used at the very end of all actions that are meant to be
      * in the timeline.
@@ -101,17 +187,22 @@ public class Log
      *              go into the timeline.
      * @param message   A message describing what happened to the data.
      */
-    public static void state(AdvancedData data, String message)
+    public synchronized static void state(AdvancedData data, String message)
     {
-        AdvancedData state = (AdvancedData) data.clone();
         if(instance.message == null) {
-            state.message = message;
+            instance.states.add(data, message);
         } else {
-            state.message = instance.message;
-            toFile(state.message);
+            instance.states.add(data, instance.message);
+            toFile(instance.message);
             instance.message = null;
         }
-        instance.states.add(state);
+        if(instance.journal != null) {
+            try {
+                instance.journal.state(System.currentTimeMillis(), data, instance.states.getMessage(0));
+            } catch(IOException e) {
+                error("cannot write to journal!");
+            }
+        }
         toFile(message);
     }
     
@@ -119,32 +210,38 @@ public class Log
      * Changes the data used in all actions via the EventHandler to a data from
      * the timeline. So this is the undo function.
      * If a game state change is undone, the time when it was left is restored.
-     * Thereby, there whole remaining log is moved into the new timeframe.
+     * Thereby, there whole remaining timeline is moved into the new timeframe.
      * 
      * @param states    How far you want to go back, how many states.
      * 
      * @return The message that was attached to the data you went back to.
      */
-    public static String goBack(int states)
+    public synchronized static String goBack(int states)
     {
         if(states >= instance.states.size()) {
             states = instance.states.size()-1;
         }
         
-        long laterTimestamp = instance.states.getLast().whenCurrentGameStateBegan;
+        long laterTimestamp = instance.states.getWhenCurrentGameStateBegan(0);
         long earlierTimestamp = 0;
-        long timeInCurrentState = instance.states.getLast().getTime() - laterTimestamp;
+        long timeInCurrentState = instance.states.get(0).getTime() - laterTimestamp;
         for(int i=0; i<states; i++) {
-            earlierTimestamp = instance.states.getLast().whenCurrentGameStateBegan;
-            instance.states.removeLast();
+            earlierTimestamp = instance.states.getWhenCurrentGameStateBegan(0);
+            instance.states.removeLatest();
         }
-        if(laterTimestamp != instance.states.getLast().whenCurrentGameStateBegan) {
-            long timeOffset = laterTimestamp - earlierTimestamp + timeInCurrentState;
-            for(AdvancedData data : instance.states) {
-                data.whenCurrentGameStateBegan += timeOffset;
+        long timeOffset = 0;
+        if(laterTimestamp != instance.states.getWhenCurrentGameStateBegan(0)) {
+            timeOffset = laterTimestamp - earlierTimestamp + timeInCurrentState;
+            instance.states.shift(timeOffset);
+        }
+        if(instance.journal != null) {
+            try {
+                instance.journal.undo(System.currentTimeMillis(), states, timeOffset);
+            } catch(IOException e) {
+                error("cannot write to journal!");
             }
         }
-        AdvancedData state = (AdvancedData) instance.states.getLast().clone();
+        AdvancedData state = instance.states.get(0);
         EventHandler.getInstance().data = state;
         return state.message;
     }
@@ -157,12 +254,12 @@ public class Log
      * @return The messages attached to the data, beginning with the latest.
      *         The arrays length equals the states parameter.
      */
-    public static String[] getLast(int states)
+    public synchronized static String[] getLast(int states)
     {
         String[] out = new String[states];
         for(int i=0; i<states; i++) {
-            if(instance.states.size()-1-i >= 0) {
-                out[i] = instance.states.get(instance.states.size()-1-i).message;
+            if(i < instance.states.size()) {
+                out[i] = instance.states.getMessage(i);
             } else {
                 out[i] = "";
             }
@@ -181,26 +278,163 @@ public class Log
     public static void error(String s)
     {
         System.err.println(s);
-        try{
-            if(instance.errorFile == null) {
-                instance.errorFile = new FileWriter(new File(instance.errorPath));
+        synchronized(instance.errorLock) {
+            try{
+                if(instance.errorFile == null) {
+                    instance.errorFile = new FileWriter(new File(instance.errorPath));
+                }
+                instance.errorFile.write(instance.errorTimestampFormat.format(new Date(System.currentTimeMillis()))+": "+s+"\n");
+                instance.errorFile.flush();
+            } catch(IOException e) {
+                 System.err.println("cannot write to error file!");
             }
-            instance.errorFile.write(instance.timestampFormat.format(new Date(System.currentTimeMillis()))+": "+s+"\n");
-            instance.errorFile.flush();
-        } catch(IOException e) {
-             System.err.println("cannot write to error file!");
         }
     }
     
     /**
-     * Closes the Log
+     * Closes the Log. All lines logged before are written into the file
+     * first. Afterwards, the Log may be initialised again.
      *
      * @throws IOException if an error occurred while trying to close the FileWriters
      */
     public static void close() throws IOException {
-        if(instance.errorFile != null) {
-            instance.errorFile.close();
+        synchronized(instance.errorLock) {
+            if(instance.errorFile != null) {
+                instance.errorFile.close();
+            }
+        }
+        if(instance.writer != null) {
+            instance.writer.close();
+            instance.writer = null;
+        }
+        synchronized(Log.class) {
+            if(instance.journal != null) {
+                instance.journal.close();
+                instance.journal = null;
+            }
+        }
+    }
+    
+    /**
+     * A line to be written into the log file.
+     */
+    private static class Line
+    {
+        /** When the line was logged in millis. */
+        final long when;
+        /** The line without timestamp, null to close the file. */
+        final String message;
+        
+        Line(long when, String message)
+        {
+            this.when = when;
+            this.message = message;
+        }
+    }
+    
+    /**
+     * This thread writes all lines queued into the file. All lines that are
+     * waiting are written at once and then handed over to the operating
+     * system together.
+     */
+    private class LineWriter extends Thread
+    {
+        /** When the file is synced to the disk. */
+        private final Sync sync;
+        /** When the file was synced the last time in millis. */
+        private long lastSync;
+        /** The lines taken from the queue to be written at once. */
+        private final ArrayList<Line> batch = new ArrayList<Line>();
+        /** The format of timestamps, only used by this thread. */
+        private final SimpleDateFormat format = new SimpleDateFormat(TIMESTAMP_PATTERN);
+        private final Date date = new Date();
+        
+        /**
+         * Creates a new LineWriter.
+         * 
+         * @param sync  When the file is synced to the disk.
+         */
+        LineWriter(Sync sync)
+        {
+            super("Log");
+            this.sync = sync;
+            setDaemon(true);
+        }
+        
+        /**
+         * Writes the lines until the file is closed.
+         */
+        @Override
+        public void run()
+        {
+            Writer out = file == null ? null
+                    : new BufferedWriter(new OutputStreamWriter(file));
+            boolean closed = false;
+            while(!closed) {
+                try {
+                    batch.add(lines.take());
+                } catch(InterruptedException e) {
+                    closed = true;
+                }
+                lines.drainTo(batch);
+                try {
+                    for(Line line : batch) {
+                        if(line.message == null) {
+                            closed = true;
+                        } else if(out != null) {
+                            write(out, line.when, line.message);
+                        }
+                    }
+                    int droppedLines = dropped.getAndSet(0);
+                    if(droppedLines > 0 && out != null) {
+                        write(out, System.currentTimeMillis(), droppedLines+" lines dropped, the log could not be written fast enough");
+                    }
+                    if(out != null) {
+                        out.flush();
+                        long now = System.currentTimeMillis();
+                        if(sync == Sync.BATCH || sync == Sync.PERIODIC && (closed || now - lastSync >= SYNC_PERIOD)) {
+                            file.getFD().sync();
+                            lastSync = now;
+                        }
+                    }
+                } catch(IOException e) {
+                    error("cannot write to logfile!");
+                }
+                batch.clear();
+            }
+            if(out != null) {
+                try {
+                    out.close();
+                } catch(IOException e) {
+                    error("cannot close logfile!");
+                }
+            }
+        }
+        
+        /**
+         * Writes a line, beginning with a timestamp.
+         */
+        private void write(Writer out, long when, String message) throws IOException
+        {
+            date.setTime(when);
+            out.write(format.format(date));
+            out.write(": ");
+            out.write(message);
+            out.write("\n");
+        }
+        
+        /**
+         * Lets this thread write all lines queued so far, closes the file and
+         * waits until this is done.
+         */
+        void close()
+        {
+            try {
+                lines.put(new Line(0, null));
+                join();
+            } catch(InterruptedException e) {
+                interrupt();
+            }
         }
-        instance.file.close();
     }
 }
\ No newline at end of file
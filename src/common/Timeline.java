@@ -0,0 +1,268 @@
+package common;
+
+import data.AdvancedData;
+import data.StateVector;
+
+
+/**
+ * This class holds the latest states of the game, as far as they can be
+ * undone. It has a fixed capacity. When it is full, the oldest state is
+ * dropped for each new one, it is only left in the log file.
+ *
+ * Usually an action only changes a few fields, so most states are not
+ * stored completely, but only as the fields that are different from the
+ * state before (see StateVector). Every KEYFRAME_INTERVAL states, and
+ * always for the oldest state, the complete state is stored as keyframe.
+ * So rebuilding a state never needs more than KEYFRAME_INTERVAL-1 deltas.
+ *
+ * When a game state change is undone, the timestamps of all states must be
+ * moved into the new timeframe. Instead of changing every state, the time
+ * they are moved by is summed up and each state remembers the sum at the
+ * time it was added. So a state only has to be moved by the difference
+ * when it is read.
+ */
+public class Timeline
+{
+    /** A complete state is stored at least every that many states. */
+    public static final int KEYFRAME_INTERVAL = 4;
+
+    /** The complete states, null where only a delta is stored. */
+    private final long[][] keyframes;
+    /** The indices within the vectors of the fields changed, null for keyframes. */
+    private final int[][] deltaIndices;
+    /** The new values of the fields changed, null for keyframes. */
+    private final long[][] deltaValues;
+    /** The messages attached to the states. */
+    private final String[] messages;
+    /** The time shift at the time each state was added. */
+    private final long[] shiftAtInsert;
+    /** The index of the latest state. */
+    private int latest = -1;
+    /** The number of states. */
+    private int size = 0;
+    /** The number of deltas since the latest keyframe. */
+    private int deltasSinceKeyframe = 0;
+    /** The sum of all times the states were moved by in ms. */
+    private long timeShift = 0;
+    /** The latest state as vector, null if there is none. */
+    private long[] latestVector;
+    /** The vector the new state is encoded into. */
+    private long[] vector;
+
+
+    /**
+     * Creates a new, empty Timeline.
+     *
+     * @param capacity  The number of states to be held at most.
+     */
+    public Timeline(int capacity)
+    {
+        keyframes = new long[capacity][];
+        deltaIndices = new int[capacity][];
+        deltaValues = new long[capacity][];
+        messages = new String[capacity];
+        shiftAtInsert = new long[capacity];
+    }
+
+    /**
+     * Returns the number of states.
+     *
+     * @return The number of states, never more than the capacity.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Adds a state as the latest one. If the timeline is full, the oldest
+     * state is dropped.
+     *
+     * @param state     The state to add. It is copied, so it may be changed
+     *                  afterwards.
+     * @param message   The message attached to the state.
+     */
+    public void add(AdvancedData state, String message)
+    {
+        if(vector == null) {
+            vector = new long[StateVector.getLength()];
+        }
+        StateVector.encode(state, vector);
+        add(vector, message);
+    }
+
+    /**
+     * Adds a state as the latest one. If the timeline is full, the oldest
+     * state is dropped.
+     *
+     * @param vector    The state as vector (see StateVector). It is copied,
+     *                  so it may be changed afterwards.
+     * @param message   The message attached to the state.
+     */
+    void add(long[] vector, String message)
+    {
+        int capacity = messages.length;
+        if(size == capacity) {
+            // the second oldest state becomes the oldest one
+            int next = (latest + 2) % capacity;
+            if(keyframes[next] == null) {
+                keyframes[next] = rebuild(next);
+                deltaIndices[next] = null;
+                deltaValues[next] = null;
+            }
+        }
+
+        latest = (latest + 1) % capacity;
+        if(latestVector == null || deltasSinceKeyframe == KEYFRAME_INTERVAL - 1) {
+            keyframes[latest] = vector.clone();
+            deltaIndices[latest] = null;
+            deltaValues[latest] = null;
+            deltasSinceKeyframe = 0;
+        } else {
+            int changed = 0;
+            for(int i=0; i<vector.length; i++) {
+                if(vector[i] != latestVector[i]) {
+                    changed++;
+                }
+            }
+            int[] indices = new int[changed];
+            long[] values = new long[changed];
+            for(int i=0, j=0; j<changed; i++) {
+                if(vector[i] != latestVector[i]) {
+                    indices[j] = i;
+                    values[j++] = vector[i];
+                }
+            }
+            keyframes[latest] = null;
+            deltaIndices[latest] = indices;
+            deltaValues[latest] = values;
+            deltasSinceKeyframe++;
+        }
+        messages[latest] = message;
+        shiftAtInsert[latest] = timeShift;
+        if(size < capacity) {
+            size++;
+        }
+
+        if(latestVector == null) {
+            latestVector = new long[vector.length];
+        }
+        System.arraycopy(vector, 0, latestVector, 0, vector.length);
+    }
+
+    /**
+     * Removes the latest state.
+     */
+    public void removeLatest()
+    {
+        if(size == 0) {
+            throw new IllegalStateException("timeline is empty");
+        }
+        keyframes[latest] = null;
+        deltaIndices[latest] = null;
+        deltaValues[latest] = null;
+        messages[latest] = null;
+        latest = (latest + messages.length - 1) % messages.length;
+        size--;
+        if(size == 0) {
+            latestVector = null;
+        } else {
+            latestVector = rebuild(latest);
+            deltasSinceKeyframe = 0;
+            for(int index = latest; keyframes[index] == null; index = (index + messages.length - 1) % messages.length) {
+                deltasSinceKeyframe++;
+            }
+        }
+    }
+
+    /**
+     * Moves all states in the timeline into a new timeframe.
+     *
+     * @param millis    The time to move the states by in ms.
+     */
+    public void shift(long millis)
+    {
+        timeShift += millis;
+    }
+
+    /**
+     * Returns a copy of a state, moved into the current timeframe.
+     *
+     * @param back  How many states to go back from the latest, 0 is the
+     *              latest one.
+     *
+     * @return A new data that may be changed.
+     */
+    public AdvancedData get(int back)
+    {
+        int index = getIndex(back);
+        AdvancedData state = new AdvancedData();
+        StateVector.decode(index == latest ? latestVector : rebuild(index), state);
+        state.message = messages[index];
+        state.whenCurrentGameStateBegan += timeShift - shiftAtInsert[index];
+        return state;
+    }
+
+    /**
+     * Returns when the current game state began in a state, moved into
+     * the current timeframe.
+     *
+     * @param back  How many states to go back from the latest, 0 is the
+     *              latest one.
+     *
+     * @return The timestamp in ms.
+     */
+    public long getWhenCurrentGameStateBegan(int back)
+    {
+        int index = getIndex(back);
+        long[] state = index == latest ? latestVector : rebuild(index);
+        return state[StateVector.WHEN_CURRENT_GAME_STATE_BEGAN] + timeShift - shiftAtInsert[index];
+    }
+
+    /**
+     * Returns the message attached to a state.
+     *
+     * @param back  How many states to go back from the latest, 0 is the
+     *              latest one.
+     *
+     * @return The message.
+     */
+    public String getMessage(int back)
+    {
+        return messages[getIndex(back)];
+    }
+
+    private int getIndex(int back)
+    {
+        if(back < 0 || back >= size) {
+            throw new IndexOutOfBoundsException("state "+back+" of "+size);
+        }
+        return (latest - back + messages.length) % messages.length;
+    }
+
+    /**
+     * Rebuilds a state from the keyframe before it and the deltas since.
+     *
+     * @param index     The index of the state.
+     *
+     * @return A new vector of the state.
+     */
+    private long[] rebuild(int index)
+    {
+        int capacity = messages.length;
+        int keyframe = index;
+        while(keyframes[keyframe] == null) {
+            keyframe = (keyframe + capacity - 1) % capacity;
+        }
+        long[] state = keyframes[keyframe].clone();
+        while(keyframe != index) {
+            keyframe = (keyframe + 1) % capacity;
+            int[] indices = deltaIndices[keyframe];
+            long[] values = deltaValues[keyframe];
+            for(int i=0; i<indices.length; i++) {
+                state[indices[i]] = values[i];
+            }
+        }
+        return state;
+    }
+}
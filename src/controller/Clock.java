@@ -1,5 +1,6 @@
 package controller;
 
+import common.Heartbeat;
 import controller.action.ActionBoard;
 
 
@@ -12,12 +13,14 @@ import controller.action.ActionBoard;
 public class Clock
 {
     /**
-     * The time in millis to sleep before next ClockTick. This does not mean
-     * it fires after this time, it will allways take some more millis depending
-     * on the performance.
+     * The time in millis between two ClockTicks. They are fired on a fixed
+     * grid, so the time needed to process a ClockTick does not add up.
      */
     public static final int HEARTBEAT = 500; // 2Hz
     
+    /** The grid the ClockTicks are fired on. */
+    private final Heartbeat heartbeat = new Heartbeat(HEARTBEAT);
+    
     
     /**
      * Lets the Clock start to run.
@@ -26,11 +29,22 @@ public class Clock
     {   
         while(true)
         {
-            ActionBoard.clock.actionPerformed(null);
-            
             try {
-                Thread.sleep(HEARTBEAT);
+                heartbeat.waitForNextTick();
             } catch (InterruptedException e) {}
+            
+            ActionBoard.clock.actionPerformed(null);
         }
     }
+    
+    /**
+     * Returns the heartbeat the ClockTicks are fired with, e.g. to look at
+     * its jitter.
+     * 
+     * @return The heartbeat.
+     */
+    public Heartbeat getHeartbeat()
+    {
+        return heartbeat;
+    }
 }
\ No newline at end of file
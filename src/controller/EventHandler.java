@@ -1,11 +1,16 @@
 package controller;
 
+import common.Log;
 import controller.action.ActionType;
 import controller.action.GCAction;
+import controller.net.RobotWatcher;
 import controller.net.Sender;
 import controller.ui.GCGUI;
 import data.AdvancedData;
 import java.awt.EventQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -13,9 +18,15 @@ import java.awt.EventQueue;
  * 
  * If the actionPerformed method of an action is called, it executes the register
  * method of this class. Later the action`s perform method will be called
- * in the GUI`s thread. This is to avoid resource conflicts caused by multiple
+ * in a single thread. This is to avoid resource conflicts caused by multiple
  * threads without massive use of synchronized get- and set-methods.
  * 
+ * Once the engine was started, this thread is an own event loop that owns
+ * the data, so the game does not depend on Swing and can also run without
+ * a display. The GUI is then only a subscriber that gets copies of the data
+ * in its own thread. Until the engine is started, actions are performed in
+ * the GUI`s thread.
+ * 
  * This class is a sigleton!
  */
 public class EventHandler
@@ -23,8 +34,8 @@ public class EventHandler
     /** The instance of the singleton. */
     private static EventHandler instance;
     
-    /** This GUI`s update method will be called. */
-    private GCGUI gui;
+    /** This GUI`s update method will be called, if there is one. */
+    private volatile GCGUI gui;
     /** The sender has a send method to update the data to send */
     private Sender sender = Sender.getInstance();
     /**
@@ -34,14 +45,40 @@ public class EventHandler
      */
     public AdvancedData data;
     /** The last actions as the name says. */
-    public GCAction lastNonClockEvent = null;
-    public GCAction lastUIEvent = null;
-    public GCAction lastNetEvent = null;
+    public volatile GCAction lastNonClockEvent = null;
+    public volatile GCAction lastUIEvent = null;
+    public volatile GCAction lastNetEvent = null;
     /**
      * This may be set only in actions. If true, lastUIEvent will be set to
      * null, even if the current action is an UIEvent.
      */
     public boolean noLastUIEvent = false;
+    
+    /** The actions registered but not yet performed by the engine. */
+    private final BlockingQueue<Runnable> events = new LinkedBlockingQueue<Runnable>();
+    /** The thread performing the actions, null until the engine is started. */
+    private volatile Thread engine;
+    /**
+     * The latest copy of the data the GUI has not yet been updated with.
+     * If the GUI is slower than the actions, it skips to the latest copy.
+     */
+    private final AtomicReference<AdvancedData> snapshot = new AtomicReference<AdvancedData>();
+    /**
+     * The copy of the data the GUI was updated with last, once the engine
+     * was started. It is only replaced in the GUI`s thread.
+     */
+    private volatile AdvancedData guiData;
+    /** Updates the GUI with the latest copy of the data in the GUI`s thread. */
+    private final Runnable updateGUI = new Runnable() {
+        @Override
+        public void run() {
+            AdvancedData latest = snapshot.getAndSet(null);
+            if(latest != null) {
+                guiData = latest;
+                gui.update(latest);
+            }
+        }
+    };
 
     
     /**
@@ -72,42 +109,87 @@ public class EventHandler
         this.gui = gui;
     }
     
+    /**
+     * Returns the data as the GUI shows it. Once the engine was started,
+     * this is a copy that is not changed by the actions anymore, so it can
+     * be read in the GUI`s thread to find out what the user sees, e.g. which
+     * team is blue. It must not be changed.
+     * 
+     * @return The data the GUI was updated with last.
+     */
+    public AdvancedData getGUIData()
+    {
+        return engine != null ? guiData : data;
+    }
+    
+    /**
+     * Starts the thread that performs all actions registered from now on.
+     * From then on, the data must only be changed by actions.
+     */
+    public synchronized void startEngine()
+    {
+        if(engine != null) {
+            return;
+        }
+        guiData = new AdvancedData(data);
+        engine = new Thread("EventHandler") {
+            @Override
+            public void run() {
+                while(true) {
+                    try {
+                        events.take().run();
+                    } catch(InterruptedException e) {
+                        return;
+                    } catch(RuntimeException e) {
+                        Log.error("Error while performing an action: "+e);
+                    }
+                }
+            }
+        };
+        engine.setDaemon(true);
+        engine.start();
+    }
+    
     /**
      * Very important method called automatically by every action in it`s
      * actionPerformed method to later call it`s perform method in the
-     * GUI-Thread.
+     * engine`s thread, or in the GUI-Thread if the engine was not started.
      * 
      * @param event     The action calling.
      */
     public void register(final GCAction event) {
-        if(EventQueue.isDispatchThread()) {
-            // current thread is dispatcher, no need to use EventQueue
-            if(event.isLegal(data)) {
-                event.perform(data);
-                update(event);
+        final long whenRegistered = System.nanoTime();
+        Runnable perform = new Runnable() {
+            @Override
+            public void run() {
+                if(event.isLegal(data)) {
+                    event.perform(data);
+                    update(event, whenRegistered);
+                }
             }
+        };
+        Thread current = Thread.currentThread();
+        if(engine != null ? current == engine : EventQueue.isDispatchThread()) {
+            // current thread is the one performing actions, no need to queue
+            perform.run();
+        } else if(engine != null) {
+            events.add(perform);
         } else {
             // force all threads to perform action in GUI-thread, using
             // invokeLater to avoid deadlocks...
-            EventQueue.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    if(event.isLegal(data)) {
-                        event.perform(data);
-                        update(event);
-                    }
-                }
-            });
+            EventQueue.invokeLater(perform);
         }
     }
     
     /**
-     * After the perform method this updates some attributes, calls the GUI`s
-     * update method and changes the data to be send.
+     * After the perform method this updates some attributes, changes the
+     * data to be send and lets the GUI`s update method be called.
      * 
      * @param event     The action that has been called.
+     * @param whenRegistered    When the action has been registered
+     *                          ({@link System#nanoTime()}).
      */
-    private void update(GCAction event)
+    private void update(GCAction event, long whenRegistered)
     {
         if(event.type != ActionType.CLOCK) {
             lastNonClockEvent = event;
@@ -121,7 +203,18 @@ public class EventHandler
             noLastUIEvent = false;
             lastUIEvent = null;
         }
-        sender.send(data);
-        gui.update(data);
+        RobotWatcher.updateTeams(data);
+        if(event.type != ActionType.CLOCK) {
+            sender.send(data, whenRegistered);
+        } else {
+            sender.send(data);
+        }
+        if(gui != null) {
+            if(engine == null) {
+                gui.update(data);
+            } else if(snapshot.getAndSet(new AdvancedData(data)) == null) {
+                EventQueue.invokeLater(updateGUI);
+            }
+        }
     }
 }
\ No newline at end of file
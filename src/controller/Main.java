@@ -1,9 +1,11 @@
 package controller;
 
 import common.ApplicationLock;
+import common.Journal;
 import common.Log;
 import controller.action.ActionBoard;
 import controller.net.Receiver;
+import controller.net.RobotWatcher;
 import controller.net.Sender;
 import controller.ui.GCGUI;
 import controller.ui.GUI;
@@ -46,6 +48,11 @@ public class Main
             + "\n  (-b | --broadcast) <address>    set broadcast ip (default is 255.255.255.255)"
             + "\n  (-l | --league) %s%sselect league (default is spl)"
             + "\n  (-w | --window)                 select window mode (default is fullscreen)"
+            + "\n  (-t | --teams) <team> <team>    select the teams by number and skip the start dialog"
+            + "\n  --headless                      run without any window, needs --teams"
+            + "\n  --log-sync (none | batch | periodic)"
+            + "\n                                  when to sync the log to the disk (default is none)"
+            + "\n  --recover [<journal>]           continue the game of a journal (default is the latest)"
             + "\n";
     private static final String COMMAND_HELP = "--help";
     private static final String COMMAND_HELP_SHORT = "-h";
@@ -56,6 +63,14 @@ public class Main
     private static final String COMMAND_LEAGUE_SHORT = "-l";
     private static final String COMMAND_WINDOW = "--window";
     private static final String COMMAND_WINDOW_SHORT = "-w";
+    private static final String COMMAND_TEAMS = "--teams";
+    private static final String COMMAND_TEAMS_SHORT = "-t";
+    private static final String COMMAND_HEADLESS = "--headless";
+    private static final String COMMAND_LOG_SYNC = "--log-sync";
+    private static final String COMMAND_RECOVER = "--recover";
+    
+    /** Whether the GameController runs without any window. */
+    private static boolean headless = false;
     
     /**
      * The programm starts here.
@@ -67,6 +82,9 @@ public class Main
         //commands
         String outBroadcastAddress = DEFAULT_BROADCAST;
         boolean windowMode = false;
+        int[] outTeams = null;
+        Log.Sync logSync = Log.Sync.NONE;
+        String recoverPath = null;
         
         parsing:
         for(int i=0; i<args.length; i++) {
@@ -89,6 +107,35 @@ public class Main
             } else if (args[i].equals(COMMAND_WINDOW_SHORT) || args[i].equals(COMMAND_WINDOW)) {
                 windowMode = true;
                 continue parsing;
+            } else if( (args.length > i+2)
+                    && ( (args[i].equals(COMMAND_TEAMS_SHORT))
+                    || (args[i].equals(COMMAND_TEAMS)) )
+                    && args[i+1].matches("\\d+") && args[i+2].matches("\\d+") ) {
+                outTeams = new int[] {Integer.parseInt(args[++i]), Integer.parseInt(args[++i])};
+                continue parsing;
+            } else if (args[i].equals(COMMAND_HEADLESS)) {
+                headless = true;
+                continue parsing;
+            } else if( (args.length > i+1)
+                    && (args[i].equals(COMMAND_LOG_SYNC)) ) {
+                i++;
+                for(Log.Sync sync : Log.Sync.values()) {
+                    if(sync.name().equalsIgnoreCase(args[i])) {
+                        logSync = sync;
+                        continue parsing;
+                    }
+                }
+            } else if (args[i].equals(COMMAND_RECOVER)) {
+                if(args.length > i+1 && !args[i+1].startsWith("-")) {
+                    recoverPath = args[++i];
+                } else {
+                    recoverPath = findLatestJournal();
+                    if(recoverPath == null) {
+                        System.out.println("There is no journal in "+LOG_DIRECTORY+" to recover from");
+                        System.exit(0);
+                    }
+                }
+                continue parsing;
             }
             String leagues = "";
             for(Rules rules : Rules.LEAGUES) {
@@ -102,39 +149,82 @@ public class Main
                               : "\n                                  ");
             System.exit(0);
         }
+        if(recoverPath != null) {
+            try {
+                String league = Journal.readLeague(recoverPath);
+                for(Rules rules : Rules.LEAGUES) {
+                    if(rules.leagueDirectory.equals(league)) {
+                        Rules.league = rules;
+                    }
+                }
+            } catch(IOException e) {
+                System.out.println("Cannot recover from "+recoverPath+": "+e.getMessage());
+                System.exit(0);
+            }
+        } else if(outTeams != null) {
+            for(int team : outTeams) {
+                if(Teams.getName(team) == null) {
+                    System.out.println("Unknown team "+team+" in league "+Rules.league.leagueDirectory);
+                    System.exit(0);
+                }
+            }
+            if(outTeams[0] == outTeams[1]) {
+                System.out.println("The teams have to be different");
+                System.exit(0);
+            }
+        } else if(headless) {
+            System.out.println("The teams have to be selected with "+COMMAND_TEAMS+" in headless mode");
+            System.exit(0);
+        }
         
         //application-lock
         final ApplicationLock applicationLock = new ApplicationLock("GameController");
         try {
             if (!applicationLock.acquire()) {
-                JOptionPane.showMessageDialog(null,
-                        "An instance of GameController already exists.",
+                showMessage("An instance of GameController already exists.",
                         "Multiple instances",
                         JOptionPane.WARNING_MESSAGE);
                 System.exit(0);
             }
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(null,
-                    "Error while trying to acquire the application lock.",
+            showMessage("Error while trying to acquire the application lock.",
                     "IOError",
                     JOptionPane.ERROR_MESSAGE);
             System.exit(-1);
         }
 
         //collect the start parameters and put them into the first data.
-        StartInput input = new StartInput(!windowMode);
-        while(!input.finished) {
-            try{
-            Thread.sleep(100);
-            } catch(Exception e) {}
-        }
-
         AdvancedData data = new AdvancedData();
-        for(int i=0; i<2; i++) {
-            data.team[i].teamNumber = (byte)input.outTeam[i];
+        StartInput input = null;
+        boolean fullscreen = !windowMode;
+        if(recoverPath != null) {
+            //or take the data from the journal of the game to continue
+            data = Log.openJournal(recoverPath);
+            if(data == null) {
+                showMessage("Cannot recover the game from " + recoverPath + ".",
+                        "Recovery failed",
+                        JOptionPane.ERROR_MESSAGE);
+                System.exit(-1);
+            }
+        } else if(outTeams == null) {
+            input = new StartInput(!windowMode);
+            while(!input.finished) {
+                try{
+                Thread.sleep(100);
+                } catch(Exception e) {}
+            }
+            outTeams = input.outTeam;
+            fullscreen = input.outFullscreen;
+            data.colorChangeAuto = input.outAutoColorChange;
+            data.playoff = input.outFulltime;
+        } else {
+            data.colorChangeAuto = Rules.league.colorChangeAuto;
+        }
+        if(recoverPath == null) {
+            for(int i=0; i<2; i++) {
+                data.team[i].teamNumber = (byte)outTeams[i];
+            }
         }
-        data.colorChangeAuto = input.outAutoColorChange;
-        data.playoff = input.outFulltime;
 
         try {
             //sender
@@ -145,13 +235,13 @@ public class Main
 
             //event-handler
             EventHandler.getInstance().data = data;
+            RobotWatcher.updateTeams(data);
 
             //receiver
             Receiver receiver = Receiver.getInstance();
             receiver.start();
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(null,
-                    "Error while setting up GameController on port: " + GameControlData.GAMECONTROLLER_PORT + ".",
+            showMessage("Error while setting up GameController on port: " + GameControlData.GAMECONTROLLER_PORT + ".",
                     "Error on configured port",
                     JOptionPane.ERROR_MESSAGE);
             System.exit(-1);
@@ -160,13 +250,22 @@ public class Main
         //log
         SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss-S");
         
+        String timestamp = df.format(new Date(System.currentTimeMillis()));
         final File logDir = new File(LOG_DIRECTORY);
+        File journalFile;
         if (!logDir.exists() && !logDir.mkdirs()) {
-            Log.init("log_"+df.format(new Date(System.currentTimeMillis()))+".txt");
+            Log.init("log_"+timestamp+".txt", logSync);
+            journalFile = new File("journal_"+timestamp+".bin");
         } else {
             final File logFile = new File(logDir, 
-                "log_"+df.format(new Date(System.currentTimeMillis()))+".txt");
-            Log.init(logFile.getPath());
+                "log_"+timestamp+".txt");
+            Log.init(logFile.getPath(), logSync);
+            journalFile = new File(logDir, "journal_"+timestamp+".bin");
+        }
+        if(recoverPath == null) {
+            Log.openJournal(journalFile.getPath());
+        } else {
+            Log.toFile("Recovered game from journal " + recoverPath);
         }
         Log.toFile("League = "+Rules.league.leagueName);
         Log.toFile("Play-off = "+data.playoff);
@@ -175,26 +274,43 @@ public class Main
 
         //ui
         ActionBoard.init();
-        Log.state(data, Teams.getNames(false)[data.team[0].teamNumber] +" vs "+Teams.getNames(false)[data.team[1].teamNumber]);
-        GCGUI gui = new GUI(input.outFullscreen, data);
-        new KeyboardListener();
-        EventHandler.getInstance().setGUI(gui);
-        gui.update(data);
+        if(recoverPath == null) {
+            Log.state(data, Teams.getName(data.team[0].teamNumber) +" vs "+Teams.getName(data.team[1].teamNumber));
+        }
+        if(!headless) {
+            GCGUI gui = new GUI(fullscreen, data);
+            new KeyboardListener();
+            EventHandler.getInstance().setGUI(gui);
+            gui.update(data);
+        }
 
         //input dispose
-        input.dispose();
+        if(input != null) {
+            input.dispose();
+        }
+
+        //from now on, all actions are performed by the engine
+        EventHandler.getInstance().startEngine();
+
+        //clock
+        final Clock clock = new Clock();
 
         //shutdown hook, to release resources
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
+                Sender sender = Sender.getInstance();
+                Log.toFile(String.format("Sent %d changes right away, latency avg %.1f ms, max %.1f ms",
+                        sender.getImmediateSends(), sender.getAverageLatency(), sender.getMaxLatency()));
+                Log.toFile("Clock jitter: "+clock.getHeartbeat());
+                Log.toFile("Sender jitter: "+sender.getHeartbeat());
                 Log.toFile("Shutdown GameController");
                 try {
                     applicationLock.release();
                 } catch (IOException e) {
                     Log.error("Error while trying to release the application lock.");
                 }
-                Sender.getInstance().interrupt();
+                sender.interrupt();
                 Receiver.getInstance().interrupt();
 
                 try {
@@ -205,8 +321,43 @@ public class Main
             }
         });
 
-        //clock
-        Clock clock = new Clock();
         clock.start();
     }
+    
+    /**
+     * Finds the journal written last in the log directory.
+     * 
+     * @return The path of the journal, or null if there is none.
+     */
+    private static String findLatestJournal()
+    {
+        File[] files = new File(LOG_DIRECTORY).listFiles();
+        File latest = null;
+        if(files != null) {
+            for(File file : files) {
+                if(file.getName().startsWith("journal_") && file.getName().endsWith(".bin")
+                        && (latest == null || file.lastModified() > latest.lastModified())) {
+                    latest = file;
+                }
+            }
+        }
+        return latest == null ? null : latest.getPath();
+    }
+    
+    /**
+     * Shows a message to the user, in a dialog or, if running headless,
+     * on the console.
+     * 
+     * @param message       The message to be shown.
+     * @param title         The title of the dialog.
+     * @param messageType   The type of the message as used by JOptionPane.
+     */
+    private static void showMessage(String message, String title, int messageType)
+    {
+        if(headless) {
+            System.err.println(title+": "+message);
+        } else {
+            JOptionPane.showMessageDialog(null, message, title, messageType);
+        }
+    }
 }
\ No newline at end of file
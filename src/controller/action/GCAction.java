@@ -33,7 +33,7 @@ public abstract class GCAction implements ActionListener
      * This gets called when the button an action is added to was pushed or
      * if the action is called otherwise.
      * The action`s perform method will not be executed right away but
-     * later in the GUI`s thread.
+     * later in the thread of the EventHandler.
      * 
      * @param e      The event that happened, but this is ignored.
      */
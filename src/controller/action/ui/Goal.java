@@ -48,15 +48,15 @@ public class Goal extends GCAction
         if(set == 1) {
             if(data.secGameState != GameControlData.STATE2_PENALTYSHOOT) {
                 data.kickOffTeam = data.team[side].teamColor == GameControlData.TEAM_BLUE ? GameControlData.TEAM_RED : GameControlData.TEAM_BLUE;
-                Log.setNextMessage("Goal for Team "+Teams.getNames(false)[data.team[side].teamNumber]);
+                Log.setNextMessage("Goal for Team "+Teams.getName(data.team[side].teamNumber));
                 ActionBoard.ready.perform(data);
             } else {
                 data.penaltyTries[side] += (1<<(data.penaltyShot[side]-1));
-                Log.setNextMessage("Goal for Team "+Teams.getNames(false)[data.team[side == 0 ? 1 : 0].teamNumber]);
+                Log.setNextMessage("Goal for Team "+Teams.getName(data.team[side == 0 ? 1 : 0].teamNumber));
                 ActionBoard.finish.perform(data);
             }
         } else {
-            Log.state(data, "Goal decrease for Team "+Teams.getNames(false)[data.team[side].teamNumber]);
+            Log.state(data, "Goal decrease for Team "+Teams.getName(data.team[side].teamNumber));
         }
     }
     
@@ -4,11 +4,11 @@ import common.Log;
 import data.GameControlData;
 import data.GameControlReturnData;
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
-import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 
 /**
  *
@@ -19,6 +19,10 @@ import java.nio.ByteBuffer;
  * If a package was received, this class will invoke {@link RobotWatcher#update(data.GameControlReturnData)} to update
  * the robots online status.
  *
+ * The packages are received through a non-blocking {@link DatagramChannel} into one preallocated buffer and decoded
+ * into one reused {@link GameControlReturnData}, so receiving does not create any garbage. This works, because each
+ * package is completely handled before the next one is received.
+ *
  * This class is a sigleton!
  */
 public class Receiver extends Thread
@@ -26,19 +30,31 @@ public class Receiver extends Thread
     /** The instance of the singleton. */
     private static Receiver instance;
 
-    /** The used socket to receive the packages. */
-    private final DatagramSocket datagramSocket;
+    /** The used channel to receive the packages. */
+    private final DatagramChannel channel;
+
+    /** The selector to wait for packages. */
+    private final Selector selector;
+
+    /** The buffer the packages are received into. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GameControlReturnData.SIZE);
+
+    /** The package received last. */
+    private final GameControlReturnData player = new GameControlReturnData();
 
     /**
      * Creates a new Receiver.
      *
-     * @throws SocketException the an error occurs while creating the socket
+     * @throws IOException the an error occurs while creating the channel
      */
-    private Receiver() throws SocketException
+    private Receiver() throws IOException
     {
-        datagramSocket = new DatagramSocket(null);
-        datagramSocket.setReuseAddress(true);
-        datagramSocket.bind(new InetSocketAddress(GameControlData.GAMECONTROLLER_PORT));
+        channel = DatagramChannel.open();
+        channel.socket().setReuseAddress(true);
+        channel.socket().bind(new InetSocketAddress(GameControlData.GAMECONTROLLER_PORT));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
     }
 
     /**
@@ -53,7 +69,7 @@ public class Receiver extends Thread
         if(instance == null) {
             try {
                 instance = new Receiver();
-            } catch(SocketException e) {
+            } catch(IOException e) {
                 throw new IllegalStateException("fatal: Error while setting up Receiver.", e);
             }
         }
@@ -62,24 +78,29 @@ public class Receiver extends Thread
 
     @Override
     public void run() {
-       while(!isInterrupted()) {
-           final ByteBuffer buffer = ByteBuffer.wrap(new byte[GameControlReturnData.SIZE]);
-           final GameControlReturnData player = new GameControlReturnData();
-
-           final DatagramPacket packet = new DatagramPacket(buffer.array(), buffer.array().length);
-
+        while(!isInterrupted()) {
             try {
-                datagramSocket.receive(packet);
-                buffer.rewind();
-
-                if(player.fromByteArray(buffer)) {
-                    RobotWatcher.update(player);
+                if(selector.select() > 0) {
+                    selector.selectedKeys().clear();
+                    buffer.clear();
+                    while(channel.receive(buffer) != null) {
+                        buffer.flip();
+                        if(player.fromByteArray(buffer)) {
+                            RobotWatcher.update(player);
+                        }
+                        buffer.clear();
+                    }
                 }
             } catch(IOException e) {
                 Log.error("something went wrong while receiving");
             }
         }
 
-        datagramSocket.close();
+        try {
+            selector.close();
+            channel.close();
+        } catch(IOException e) {
+            Log.error("Error while closing the receiver's channel");
+        }
     }
 }
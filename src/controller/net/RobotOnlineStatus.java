@@ -3,8 +3,10 @@ package controller.net;
 /**
  * @author: Marcel Steinbeck
  *
- * These enum provides all online status of a robot
+ * These enum provides all online status of a robot.
+ * DEGRADED means that the robot is online, but its packages arrive irregularly
+ * or get lost.
  */
 public enum RobotOnlineStatus {
-    UNKNOWN, HIGH_LATENCY, ONLINE, OFFLINE
+    UNKNOWN, HIGH_LATENCY, ONLINE, OFFLINE, DEGRADED
 }
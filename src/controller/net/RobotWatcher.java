@@ -1,16 +1,32 @@
 package controller.net;
 
-import controller.EventHandler;
+import common.Log;
 import controller.action.ActionBoard;
+import data.AdvancedData;
 import data.GameControlReturnData;
 import data.PlayerInfo;
 import data.Rules;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * @author: Marcel Steinbeck, Michel Bartsch
  * 
  * You can ask this class about the robots online-status.
  * 
+ * The robots' answers are received in the Receiver's thread, while the
+ * online-status is calculated in the GUI's thread. To never let one of them
+ * wait for the other, there are no locks. Each robot has its own slot in
+ * atomic arrays and the team numbers are looked up in a table that is
+ * replaced as a whole when the teams change, so the Receiver never reads the
+ * game data.
+ * 
+ * For each robot, the time between two packages is collected in a histogram
+ * and a moving average, and the ratio of lost packages is estimated. This is
+ * used to detect degraded links before the robots drop off. The histogram
+ * is halved regularly, so it reflects the recent packages. All statistics
+ * of a robot start over when it comes back after being offline.
+ * 
  * This class is a sigleton!
  */
 public class RobotWatcher
@@ -18,43 +34,106 @@ public class RobotWatcher
     /** The instance of the singleton. */
     private static RobotWatcher instance = new RobotWatcher();
 
-    /** A timestamp when the last reply from each robot was received. */
-    private long [][] robotsLastAnswer = new long[2][Rules.league.teamSize];
-    /** Last message reeived from each robot.
+    /**
+     * When the last reply from each robot was received, indexed by getIndex.
+     * These are System.nanoTime() values, so the times between them are not
+     * affected by changes of the wall clock.
+     */
+    private final AtomicLongArray robotsLastAnswer = new AtomicLongArray(2 * Rules.league.teamSize);
+    /** Last message reeived from each robot, indexed by getIndex.
      *  Look at GameControlReturnData for information about messages */
-    private int [][] robotsLastMessage = new int[2][Rules.league.teamSize];
-    /** The calculated information about the online-status. */
+    private final AtomicIntegerArray robotsLastMessage = new AtomicIntegerArray(2 * Rules.league.teamSize);
+    /** The team numbers of the left and the right side. Never changed, only replaced. */
+    private volatile int[] teamNumbers = {-1, -1};
+    /** The calculated information about the online-status. Only used in the GUI's thread. */
     private RobotOnlineStatus [][] status = new RobotOnlineStatus[2][Rules.league.teamSize];
 
     /** What the constants name says. */
     private final static int MILLIS_UNTIL_ROBOT_IS_OFFLINE = 4*1000;
     private final static int MILLIS_UNTIL_ROBOT_HAS_HIGH_LATANCY = 2*1000;
+    
+    /** How often a robot sends a package if nothing happens (ms), see libgamectrl. */
+    private final static int EXPECTED_MILLIS_BETWEEN_PACKAGES = 500;
+    /** The weight of a new value in the moving averages. */
+    private final static float EWMA_WEIGHT = 1/8f;
+    /** Above which average time between two packages (ms) a link is degraded. */
+    private final static float DEGRADED_AVERAGE_GAP = 1.5f * EXPECTED_MILLIS_BETWEEN_PACKAGES;
+    /** Above which estimated ratio of lost packages a link is degraded. */
+    private final static float DEGRADED_LOSS_RATE = 0.2f;
+    /** The width (ms) and number of the buckets of the histogram of times between two packages. */
+    public final static int GAP_BUCKET_MILLIS = 100;
+    public final static int GAP_BUCKETS = MILLIS_UNTIL_ROBOT_IS_OFFLINE / GAP_BUCKET_MILLIS;
+    /** After how many packages the histogram of a robot is halved. */
+    private final static int GAP_HISTOGRAM_HALF_LIFE = 64;
+    
+    /**
+     * The statistics about the packages of each robot. They are only written
+     * in the Receiver's thread. The averages are floats stored as int bits.
+     */
+    private final AtomicIntegerArray gapHistogram = new AtomicIntegerArray(2 * Rules.league.teamSize * GAP_BUCKETS);
+    private final AtomicIntegerArray gapSamples = new AtomicIntegerArray(2 * Rules.league.teamSize);
+    private final AtomicIntegerArray averageGap = new AtomicIntegerArray(2 * Rules.league.teamSize);
+    private final AtomicIntegerArray lossRate = new AtomicIntegerArray(2 * Rules.league.teamSize);
+    /** Which robots were reported to have a degraded link. Only used in the GUI's thread. */
+    private boolean [][] reportedDegraded = new boolean[2][Rules.league.teamSize];
 
     /**
      * Creates a new RobotWatcher.
      */
     private RobotWatcher()
     {
+        long never = System.nanoTime() - 2L * MILLIS_UNTIL_ROBOT_IS_OFFLINE * 1000000;
         for(int i  = 0; i < 2; i++) {
             for (int j = 0; j < Rules.league.teamSize; j++) {
-                robotsLastMessage[i][j] = PlayerInfo.PENALTY_NONE;
+                robotsLastAnswer.set(getIndex(i, j), never);
+                robotsLastMessage.set(getIndex(i, j), PlayerInfo.PENALTY_NONE);
+                averageGap.set(getIndex(i, j), Float.floatToIntBits(EXPECTED_MILLIS_BETWEEN_PACKAGES));
                 status[i][j] = RobotOnlineStatus.UNKNOWN;
             }
         }
     }
     
+    /**
+     * Returns the slot of a robot in the atomic arrays.
+     * 
+     * @param side      0 or 1 depending on whether the robot's team is shown left or right.
+     * @param number    The robot's number starting with 0.
+     * 
+     * @return The index of the robot's slot.
+     */
+    private static int getIndex(int side, int number)
+    {
+        return side * Rules.league.teamSize + number;
+    }
+    
+    /**
+     * Updates the table used to look up the side of a team. This should be
+     * called whenever the data changed, but it only does something if the
+     * teams actually changed.
+     * 
+     * @param data      The current data.
+     */
+    public static void updateTeams(AdvancedData data)
+    {
+        int[] teamNumbers = instance.teamNumbers;
+        if(teamNumbers[0] != data.team[0].teamNumber || teamNumbers[1] != data.team[1].teamNumber) {
+            instance.teamNumbers = new int[] {data.team[0].teamNumber, data.team[1].teamNumber};
+        }
+    }
+    
     /**
      * Recieves robot´s answers to update corresponding timestamps and fire
      * actions caused manual on the robot.
      * 
      * @param gameControlReturnData     The robot`s answer.
      */
-    public static synchronized void update(GameControlReturnData gameControlReturnData)
+    public static void update(GameControlReturnData gameControlReturnData)
     {
         int team, number;
-        if(gameControlReturnData.team == EventHandler.getInstance().data.team[0].teamNumber) {
+        int[] teamNumbers = instance.teamNumbers;
+        if(gameControlReturnData.team == teamNumbers[0]) {
             team = 0;
-        } else if(gameControlReturnData.team == EventHandler.getInstance().data.team[1].teamNumber) {
+        } else if(gameControlReturnData.team == teamNumbers[1]) {
             team = 1;
         } else {
             return;
@@ -63,9 +142,10 @@ public class RobotWatcher
         if(number <= 0 || number > Rules.league.teamSize) {
             return;
         }
-        instance.robotsLastAnswer[team][number-1] = System.currentTimeMillis();
-        if(instance.robotsLastMessage[team][number-1] != gameControlReturnData.message) {
-            instance.robotsLastMessage[team][number-1] = gameControlReturnData.message;
+        int index = getIndex(team, number-1);
+        long now = System.nanoTime();
+        instance.updateStatistics(index, (now - instance.robotsLastAnswer.getAndSet(index, now)) / 1000000);
+        if(instance.robotsLastMessage.getAndSet(index, gameControlReturnData.message) != gameControlReturnData.message) {
             if(gameControlReturnData.message == GameControlReturnData.GAMECONTROLLER_RETURN_MSG_MAN_PENALISE) {
                 ActionBoard.manualPen[team][number-1].actionPerformed(null);
             } else if(gameControlReturnData.message == GameControlReturnData.GAMECONTROLLER_RETURN_MSG_MAN_UNPENALISE) {
@@ -74,32 +154,126 @@ public class RobotWatcher
         }
     }
 
+    /**
+     * Adds the time between the last two packages of a robot to its
+     * statistics. A gap that is longer than it takes to consider a robot
+     * offline is not counted, because the robot was most likely switched
+     * off or rebooted and not suffering from a bad link. Instead, all
+     * statistics of the robot start over. This is also done for a negative
+     * gap, which cannot happen with System.nanoTime(), but must never be
+     * counted.
+     * 
+     * @param index     The robot's slot.
+     * @param gap       The time between the last two packages (ms).
+     */
+    private void updateStatistics(int index, long gap)
+    {
+        int offset = index * GAP_BUCKETS;
+        if(gap < 0 || gap >= MILLIS_UNTIL_ROBOT_IS_OFFLINE) {
+            for(int i=0; i<GAP_BUCKETS; i++) {
+                gapHistogram.set(offset + i, 0);
+            }
+            gapSamples.set(index, 0);
+            averageGap.set(index, Float.floatToIntBits(EXPECTED_MILLIS_BETWEEN_PACKAGES));
+            lossRate.set(index, Float.floatToIntBits(0));
+            return;
+        }
+        if(gapSamples.incrementAndGet(index) % GAP_HISTOGRAM_HALF_LIFE == 0) {
+            for(int i=0; i<GAP_BUCKETS; i++) {
+                gapHistogram.set(offset + i, gapHistogram.get(offset + i) / 2);
+            }
+        }
+        gapHistogram.incrementAndGet(offset + (int)(gap / GAP_BUCKET_MILLIS));
+        float average = Float.intBitsToFloat(averageGap.get(index));
+        averageGap.set(index, Float.floatToIntBits(average + EWMA_WEIGHT * (gap - average)));
+        long lost = Math.max(0, Math.round(gap / (double)EXPECTED_MILLIS_BETWEEN_PACKAGES) - 1);
+        float loss = Float.intBitsToFloat(lossRate.get(index));
+        lossRate.set(index, Float.floatToIntBits(loss + EWMA_WEIGHT * (lost / (float)(lost + 1) - loss)));
+    }
+    
+    /**
+     * Returns the moving average of the time between two packages of a robot.
+     * 
+     * @param side      0 or 1 depending on whether the robot's team is shown left or right.
+     * @param number    The robot's number starting with 0.
+     * 
+     * @return The average time in ms.
+     */
+    public static float getAverageGap(int side, int number)
+    {
+        return Float.intBitsToFloat(instance.averageGap.get(getIndex(side, number)));
+    }
+    
+    /**
+     * Returns the estimated ratio of packages of a robot that got lost,
+     * based on how often a robot is expected to send.
+     * 
+     * @param side      0 or 1 depending on whether the robot's team is shown left or right.
+     * @param number    The robot's number starting with 0.
+     * 
+     * @return The loss rate between 0 and 1.
+     */
+    public static float getLossRate(int side, int number)
+    {
+        return Float.intBitsToFloat(instance.lossRate.get(getIndex(side, number)));
+    }
+    
+    /**
+     * Returns the histogram of times between two packages of a robot.
+     * 
+     * @param side      0 or 1 depending on whether the robot's team is shown left or right.
+     * @param number    The robot's number starting with 0.
+     * 
+     * @return How often the time was within each bucket of GAP_BUCKET_MILLIS ms,
+     *         with the weight of a package halved every
+     *         GAP_HISTOGRAM_HALF_LIFE packages that followed it.
+     */
+    public static int[] getGapHistogram(int side, int number)
+    {
+        int[] histogram = new int[GAP_BUCKETS];
+        int offset = getIndex(side, number) * GAP_BUCKETS;
+        for(int i=0; i<GAP_BUCKETS; i++) {
+            histogram[i] = instance.gapHistogram.get(offset + i);
+        }
+        return histogram;
+    }
+
     /**
      * Calculates new online-status for each robot.
+     * This must only be called in the GUI's thread.
      * 
      * @return The updated online-status of each robot.
      */
-    public static synchronized RobotOnlineStatus[][] updateRobotOnlineStatus()
+    public static RobotOnlineStatus[][] updateRobotOnlineStatus()
     {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = System.nanoTime();
         int robotsOffline;
         for(int i=0; i<2; i++) {
             robotsOffline = 0;
             for(int j=0; j < instance.status[i].length; j++) {
-                if(currentTime - instance.robotsLastAnswer[i][j] > MILLIS_UNTIL_ROBOT_IS_OFFLINE) {
+                long sinceLastAnswer = (currentTime - instance.robotsLastAnswer.get(getIndex(i, j))) / 1000000;
+                if(sinceLastAnswer > MILLIS_UNTIL_ROBOT_IS_OFFLINE) {
                     instance.status[i][j] = RobotOnlineStatus.OFFLINE;
                     if(++robotsOffline >= Rules.league.teamSize) {
                         for(int k=0; k < Rules.league.teamSize; k++) {
                             instance.status[i][k] = RobotOnlineStatus.UNKNOWN;
                         }
                     }
-                } else if(currentTime - instance.robotsLastAnswer[i][j] > MILLIS_UNTIL_ROBOT_HAS_HIGH_LATANCY) {
+                } else if(sinceLastAnswer > MILLIS_UNTIL_ROBOT_HAS_HIGH_LATANCY) {
                     instance.status[i][j] = RobotOnlineStatus.HIGH_LATENCY;
+                } else if(getAverageGap(i, j) > DEGRADED_AVERAGE_GAP || getLossRate(i, j) > DEGRADED_LOSS_RATE) {
+                    instance.status[i][j] = RobotOnlineStatus.DEGRADED;
                 } else {
                     instance.status[i][j] = RobotOnlineStatus.ONLINE;
                 }
+                boolean degraded = instance.status[i][j] == RobotOnlineStatus.DEGRADED;
+                if(degraded && !instance.reportedDegraded[i][j]) {
+                    Log.toFile(String.format("Link of %s %d degraded: %.0f ms between packages, %.0f%% lost",
+                            Rules.league.teamColorName[i], j+1, getAverageGap(i, j), 100 * getLossRate(i, j)));
+                }
+                instance.reportedDegraded[i][j] = degraded;
             }
         }
         return instance.status;
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,23 @@
 package controller.net;
 
+import common.Heartbeat;
 import common.Log;
 import data.AdvancedData;
 import data.GameControlData;
 import java.io.IOException;
-import java.net.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 
 /**
  * @author Marcel Steinbeck
  *
  * This class is used to send the current {@link GameControlData} (game-state) to all robots every 500 ms.
+ * Important changes, e.g. of the game-state, are sent right away in addition to that.
  * The package will be send via UDP on port {@link GameControlData#GAMECONTROLLER_PORT} over broadcast.
+ * It is encoded in place into a preallocated direct buffer and sent through a {@link DatagramChannel}, so
+ * sending does not create any garbage.
  *
  * To prevent race-conditions (the sender is executed in its thread-context), the sender will hold a deep copy
  * of {@link GameControlData} (have a closer look to the copy-constructor
@@ -22,39 +29,63 @@ public class Sender extends Thread {
     /** The instance of the singleton. */
     private static Sender instance;
 
-    /** The socket, which is used to send the current game-state */
-    private final DatagramSocket datagramSocket;
+    /** The channel, which is used to send the current game-state */
+    private final DatagramChannel channel;
 
-    /** The used inet-address (the broadcast address). */
-    private final InetAddress group;
+    /** The used inet-address (the broadcast address) and port. */
+    private final InetSocketAddress group;
 
-    /** The used port. */
-    private final int port = GameControlData.GAMECONTROLLER_PORT;
+    /** The buffer the packet is encoded into. It is reused for every packet. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GameControlData.SIZE);
+
+    /** The time in ms between two packages if nothing changes. */
+    private static final int HEARTBEAT = 500;
+
+    /** The minimal time in ms between two packages, even if changes are sent right away. */
+    private static final int MIN_SEND_INTERVAL = 50;
+
+    /** The grid the packages are sent on if nothing changes. */
+    private final Heartbeat heartbeat = new Heartbeat(HEARTBEAT);
+
+    /** Guards all the attributes below, which are shared with the threads calling send. */
+    private final Object lock = new Object();
 
     /** The current deep copy of the game-state. */
     private AdvancedData data;
 
+    /** If true, the game-state changed and should be sent without waiting for the heartbeat. */
+    private boolean sendNow;
+
+    /** When the first action that has not been sent yet was triggered ({@link System#nanoTime()}). */
+    private long whenTriggered;
+
+    /** The statistics about sending changes right away. Latencies are in ns. */
+    private long immediateSends;
+    private long latencySum;
+    private long maxLatency;
+
     /**
      * Creates a new Sender.
      *
-     * @throws SocketException      if an error occurs while creating the socket
-     * @throws UnknownHostException if the used inet-address is not valid
+     * @throws IOException  if the used inet-address is not valid or an error
+     *                      occurs while opening the channel
      */
-    private Sender(final String broadcastAddress) throws SocketException, UnknownHostException {
+    private Sender(final String broadcastAddress) throws IOException {
         instance = this;
 
-        this.datagramSocket = new DatagramSocket();
-        this.group = InetAddress.getByName(broadcastAddress);
+        this.group = new InetSocketAddress(InetAddress.getByName(broadcastAddress), GameControlData.GAMECONTROLLER_PORT);
+        this.channel = DatagramChannel.open();
+        this.channel.socket().setBroadcast(true);
     }
 
     /**
      * Initialises the Sender. This needs to be called before {@link #getInstance()} is available.
      * @param broadcastAddress      the broadcast address to use
-     * @throws SocketException          if an error occurs while creating the socket
-     * @throws UnknownHostException     if the used inet-address is not valid
+     * @throws IOException              if the used inet-address is not valid or an
+     *                                  error occurs while opening the channel
      * @throws IllegalStateException    if the sender is already initialized
      */
-    public synchronized static void initialize(final String broadcastAddress) throws SocketException, UnknownHostException {
+    public synchronized static void initialize(final String broadcastAddress) throws IOException {
         if (null != instance) {
             throw new IllegalStateException("sender is already initialized");
         } else {
@@ -79,36 +110,167 @@ public class Sender extends Thread {
     /**
      * Sets the current game-state to send. Creates a deep copy of data to prevent race-conditions.
      * Have a closer look to {@link GameControlData#GameControlData(data.GameControlData)}
+     * The game-state will be sent with the next heartbeat.
      *
      * @param data the current game-state to send to all robots
      */
     public void send(AdvancedData data) {
-        this.data = (AdvancedData) data.clone();
+        AdvancedData copy = (AdvancedData) data.clone();
+        synchronized (lock) {
+            this.data = copy;
+        }
+    }
+
+    /**
+     * Sets the current game-state to send. Creates a deep copy of data to prevent race-conditions.
+     * If the game-state, a penalty or a score changed compared to the game-state sent before, the
+     * package is sent right away instead of waiting for the next heartbeat. To limit bursts, two
+     * packages are never sent closer than {@link #MIN_SEND_INTERVAL} ms after each other.
+     *
+     * @param data          the current game-state to send to all robots
+     * @param whenTriggered the time ({@link System#nanoTime()}) when the action that changed the
+     *                      game-state was triggered, used to measure the latency until it is sent
+     */
+    public void send(AdvancedData data, long whenTriggered) {
+        AdvancedData copy = (AdvancedData) data.clone();
+        synchronized (lock) {
+            if (this.data != null && hasImportantChange(this.data, copy)) {
+                if (!sendNow) {
+                    sendNow = true;
+                    this.whenTriggered = whenTriggered;
+                }
+                lock.notify();
+            }
+            this.data = copy;
+        }
+    }
+
+    /**
+     * Checks whether the robots should learn about a change as soon as possible.
+     *
+     * @param before    the game-state before the change
+     * @param after     the game-state after the change
+     * @return whether the game-state, a penalty or a score changed
+     */
+    private static boolean hasImportantChange(AdvancedData before, AdvancedData after) {
+        if (before.gameState != after.gameState || before.secGameState != after.secGameState) {
+            return true;
+        }
+        for (int i = 0; i < before.team.length; ++i) {
+            if (before.team[i].score != after.team[i].score) {
+                return true;
+            }
+            for (int j = 0; j < before.team[i].player.length; ++j) {
+                if (before.team[i].player[j].penalty != after.team[i].player[j].penalty) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns how many packages were sent right away because of a change.
+     *
+     * @return the number of immediate sends
+     */
+    public long getImmediateSends() {
+        synchronized (lock) {
+            return immediateSends;
+        }
+    }
+
+    /**
+     * Returns the average time between triggering an action and sending its result.
+     *
+     * @return the average latency of immediate sends in ms, 0 if there were none
+     */
+    public double getAverageLatency() {
+        synchronized (lock) {
+            return immediateSends == 0 ? 0 : latencySum / (double) immediateSends / 1000000.0;
+        }
+    }
+
+    /**
+     * Returns the longest time between triggering an action and sending its result.
+     *
+     * @return the maximum latency of immediate sends in ms
+     */
+    public double getMaxLatency() {
+        synchronized (lock) {
+            return maxLatency / 1000000.0;
+        }
+    }
+
+    /**
+     * Returns the heartbeat the packages are sent with, e.g. to look at its jitter.
+     *
+     * @return the heartbeat
+     */
+    public Heartbeat getHeartbeat() {
+        return heartbeat;
     }
 
     @Override
     public void run() {
+        long lastSent = System.nanoTime() - MIN_SEND_INTERVAL * 1000000L;
         while (!isInterrupted()) {
-            if (data != null) {
-                data.updateTimes();
-                byte[] arr = data.toByteArray().array();
-                DatagramPacket packet = new DatagramPacket(arr, arr.length, group, port);
+            AdvancedData current;
+            long triggered = 0;
+            synchronized (lock) {
+                try {
+                    while (true) {
+                        long wait = heartbeat.getNanosUntilNextTick();
+                        if (sendNow) {
+                            wait = Math.min(wait, lastSent + MIN_SEND_INTERVAL * 1000000L - System.nanoTime());
+                        }
+                        if (wait <= 0) {
+                            break;
+                        }
+                        lock.wait(wait / 1000000L, (int) (wait % 1000000L));
+                    }
+                } catch (InterruptedException e) {
+                    interrupt();
+                    break;
+                }
+                if (heartbeat.getNanosUntilNextTick() <= 0) {
+                    heartbeat.tick();
+                }
+                current = data;
+                if (sendNow) {
+                    sendNow = false;
+                    triggered = whenTriggered;
+                }
+            }
+
+            lastSent = System.nanoTime();
+            if (current != null) {
+                current.updateTimes();
+                buffer.clear();
+                current.encodeInto(buffer);
+                buffer.flip();
 
                 try {
-                    datagramSocket.send(packet);
+                    channel.send(buffer, group);
                 } catch (IOException e) {
                     Log.error("Error while sending");
                     e.printStackTrace();
                 }
-            }
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                interrupt();
+                if (triggered != 0) {
+                    long latency = System.nanoTime() - triggered;
+                    synchronized (lock) {
+                        ++immediateSends;
+                        latencySum += latency;
+                        maxLatency = Math.max(maxLatency, latency);
+                    }
+                }
             }
         }
 
-        datagramSocket.close();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.error("Error while closing the sender's channel");
+        }
     }
 }
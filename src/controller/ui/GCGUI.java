@@ -9,7 +9,8 @@ import data.AdvancedData;
  *
  * This inteface is for a GUI.
  * Evertimes the model changes the update method will be called with the new
- * model as data.
+ * model as data. It is called in the GUI`s thread with a copy of the model,
+ * so the GUI must not change it.
  * 
  * In additional a GUI can get the last action that caused the change from
  * the EventHandler, but this should not be used too often to avoid
@@ -9,6 +9,10 @@ import controller.net.RobotOnlineStatus;
 import controller.net.RobotWatcher;
 import data.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.text.SimpleDateFormat;
@@ -105,6 +109,7 @@ public class GUI extends JFrame implements GCGUI
     private static final String OFFLINE = "wlan_status_red.png";
     private static final String HIGH_LATENCY = "wlan_status_yellow.png";
     private static final String UNKNOWN_ONLINE_STATUS = "wlan_status_grey.png";
+    private static final String DEGRADED_LINK = "%.0f ms between packages, %.0f%% lost";
     private static final String TIMEOUT = "Timeout";
     private static final String STUCK = "Global<br/>Game<br/>Stuck";
     private static final String KICKOFF_GOAL = "Kickoff Goal";
@@ -149,9 +154,28 @@ public class GUI extends JFrame implements GCGUI
     private static final int TIMEOUT_HIGHLIGHT_SECONDS = 10;
     private static final int FINISH_HIGHLIGHT_SECONDS = 10;
     private static final int KICKOFF_BLOCKED_HIGHLIGHT_SECONDS = 3;
+    /** The time in millis all repaints within are collapsed into one. */
+    private static final int FRAME_TIME = 20;
+    
+    /**
+     * What has changed since the last update, one bit per group of
+     * attributes. The parts of the view depending on the time are updated
+     * every time anyway.
+     */
+    private static final int DIRTY_TEAMS = 1; // team numbers and colors
+    private static final int DIRTY_SCORE = 2;
+    private static final int DIRTY_GAME = 4; // everything the legality of actions depends on
+    private static final int DIRTY_UNDO = 8; // the timeline and the last ui event
+    private static final int DIRTY_ALL = DIRTY_TEAMS | DIRTY_SCORE | DIRTY_GAME | DIRTY_UNDO;
   
     /** Some attributes used in the GUI components. */
     private double lastSize = 0;
+    /** The data of the last update, null before the first one. */
+    private AdvancedData previous;
+    /** The last ui event at the last update. */
+    private GCAction previousUIEvent;
+    /** Repaints once after the updates of a frame. */
+    private Timer repaintTimer;
     private Font standardFont;
     private Font titleFont;
     private Font goalsFont;
@@ -235,6 +259,21 @@ public class GUI extends JFrame implements GCGUI
                 System.exit(0);
             }
         });
+        addComponentListener(new ComponentAdapter()
+        {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateFonts();
+            }
+        });
+        repaintTimer = new Timer(FRAME_TIME, new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                repaint();
+            }
+        });
+        repaintTimer.setRepeats(false);
         
         clockImgReset = new ImageIcon(ICONS_PATH+CLOCK_RESET);
         clockImgPlay = new ImageIcon(ICONS_PATH+CLOCK_PLAY);
@@ -271,7 +310,7 @@ public class GUI extends JFrame implements GCGUI
         kickOffGroup = new ButtonGroup();
         pushes = new JLabel[2];
         for(int i=0; i<2; i++) {
-            name[i] = new JLabel(Teams.getNames(false)[data.team[i].teamNumber]);
+            name[i] = new JLabel(Teams.getName(data.team[i].teamNumber));
             name[i].setHorizontalAlignment(JLabel.CENTER);
             name[i].setForeground(Rules.league.teamColor[data.team[i].teamColor]);
             goalInc[i] = new Button("+");
@@ -662,31 +701,129 @@ public class GUI extends JFrame implements GCGUI
      *  3. The actions isLegal method to enable or disable buttons.
      * This method should never have other effects than updating the view!
      * 
+     * Only the parts of the view are updated that depend on the time or on
+     * something that has changed since the last update. The repaint of the
+     * whole window is delayed a little, so a burst of updates is painted
+     * only once.
+     * 
      * @param data     The current data (model) the GUI should view.
      */
     @Override
     public void update(AdvancedData data)
     {
+        GCAction uiEvent = EventHandler.getInstance().lastUIEvent;
+        int dirty = previous == null ? DIRTY_ALL : getDirty(previous, data);
+        if(dirty != 0 || uiEvent != previousUIEvent) {
+            dirty |= DIRTY_UNDO;
+        }
+        previous = new AdvancedData(data);
+        previousUIEvent = uiEvent;
+        
         updateClock(data);
-        updateHalf(data);
-        updateColor(data);
+        if((dirty & (DIRTY_TEAMS | DIRTY_SCORE | DIRTY_GAME)) != 0) {
+            updateHalf(data);
+        }
+        if((dirty & DIRTY_TEAMS) != 0) {
+            updateColor(data);
+        }
         updateState(data);
-        updateGoal(data);
-        updateKickoff(data);
+        if((dirty & (DIRTY_TEAMS | DIRTY_SCORE | DIRTY_GAME)) != 0) {
+            updateGoal(data);
+        }
+        if((dirty & (DIRTY_TEAMS | DIRTY_GAME)) != 0) {
+            updateKickoff(data);
+        }
         updateRobots(data);
-        updatePushes(data);
+        if((dirty & DIRTY_GAME) != 0) {
+            updatePushes(data);
+        }
         updateTimeOut(data);
-        updateOut(data);
+        if((dirty & DIRTY_GAME) != 0) {
+            updateOut(data);
+        }
         if(Rules.league instanceof SPL) {
             updateGlobalStuck(data);
-            updatePenaltiesSPL(data);
+            if((dirty & (DIRTY_GAME | DIRTY_UNDO)) != 0) {
+                updatePenaltiesSPL(data);
+            }
         } else if(Rules.league instanceof HL) {
-            updatePenaltiesHL(data);
-            updateDropBall(data);
+            if((dirty & (DIRTY_GAME | DIRTY_UNDO)) != 0) {
+                updatePenaltiesHL(data);
+            }
+            if((dirty & DIRTY_GAME) != 0) {
+                updateDropBall(data);
+            }
         }
-        updateUndo(data);
-        updateFonts();
-        repaint();
+        if((dirty & DIRTY_UNDO) != 0) {
+            updateUndo(data);
+        }
+        if(!repaintTimer.isRunning()) {
+            repaintTimer.start();
+        }
+    }
+    
+    /**
+     * Finds out which groups of attributes have changed between two datas.
+     * Attributes that are only derived from the time, like the remaining
+     * seconds, are not compared.
+     * 
+     * @param previous  The data of the last update.
+     * @param data      The current data.
+     * 
+     * @return The DIRTY-bits of all groups that have changed.
+     */
+    private static int getDirty(AdvancedData previous, AdvancedData data)
+    {
+        int dirty = 0;
+        for(int i=0; i<2; i++) {
+            if(previous.team[i].teamNumber != data.team[i].teamNumber
+                    || previous.team[i].teamColor != data.team[i].teamColor
+                    || previous.team[i].goalColor != data.team[i].goalColor) {
+                dirty |= DIRTY_TEAMS;
+            }
+            if(previous.team[i].score != data.team[i].score) {
+                dirty |= DIRTY_SCORE;
+            }
+            for(int j=0; j<data.team[i].player.length; j++) {
+                if(previous.team[i].player[j].penalty != data.team[i].player[j].penalty) {
+                    dirty |= DIRTY_GAME;
+                }
+            }
+            for(int j=0; j<data.ejected[i].length; j++) {
+                if(previous.ejected[i][j] != data.ejected[i][j]
+                        || previous.whenPenalized[i][j] != data.whenPenalized[i][j]) {
+                    dirty |= DIRTY_GAME;
+                }
+            }
+            if(previous.penaltyShot[i] != data.penaltyShot[i]
+                    || previous.penaltyTries[i] != data.penaltyTries[i]
+                    || previous.pushes[i] != data.pushes[i]
+                    || previous.timeOutActive[i] != data.timeOutActive[i]
+                    || previous.timeOutTaken[i] != data.timeOutTaken[i]) {
+                dirty |= DIRTY_GAME;
+            }
+        }
+        if(previous.gameState != data.gameState
+                || previous.firstHalf != data.firstHalf
+                || previous.kickOffTeam != data.kickOffTeam
+                || previous.secGameState != data.secGameState
+                || previous.dropInTeam != data.dropInTeam
+                || previous.timeOut != data.timeOut
+                || previous.timeBeforeCurrentGameState != data.timeBeforeCurrentGameState
+                || previous.whenCurrentGameStateBegan != data.whenCurrentGameStateBegan
+                || previous.whenDropIn != data.whenDropIn
+                || previous.leftSideKickoff != data.leftSideKickoff
+                || previous.playoff != data.playoff
+                || previous.colorChangeAuto != data.colorChangeAuto
+                || previous.testmode != data.testmode
+                || previous.manPause != data.manPause
+                || previous.manPlay != data.manPlay
+                || previous.manWhenClockChanged != data.manWhenClockChanged
+                || previous.manTimeOffset != data.manTimeOffset
+                || previous.manRemainingGameTimeOffset != data.manRemainingGameTimeOffset) {
+            dirty |= DIRTY_GAME;
+        }
+        return dirty;
     }
     
     /**
@@ -732,7 +869,7 @@ public class GUI extends JFrame implements GCGUI
     private void updateHalf(AdvancedData data)
     {
         for(int i=0; i<2; i++) {
-            name[i].setText(Teams.getNames(false)[data.team[i].teamNumber]);
+            name[i].setText(Teams.getName(data.team[i].teamNumber));
         }
         firstHalf.setEnabled(ActionBoard.firstHalf.isLegal(data));
         secondHalf.setEnabled(ActionBoard.secondHalf.isLegal(data));
@@ -912,7 +1049,8 @@ public class GUI extends JFrame implements GCGUI
                 ImageIcon currentLanIcon;
                 if(onlineStatus[i][j] == RobotOnlineStatus.ONLINE) {
                     currentLanIcon = lanOnline;
-                } else if(onlineStatus[i][j] == RobotOnlineStatus.HIGH_LATENCY) {
+                } else if(onlineStatus[i][j] == RobotOnlineStatus.HIGH_LATENCY
+                        || onlineStatus[i][j] == RobotOnlineStatus.DEGRADED) {
                     currentLanIcon = lanHighLatency;
                 } else if(onlineStatus[i][j] == RobotOnlineStatus.OFFLINE) {
                     currentLanIcon = lanOffline;
@@ -920,6 +1058,9 @@ public class GUI extends JFrame implements GCGUI
                     currentLanIcon = lanUnknown;
                 }
                 robotLabel[i][j].setIcon(currentLanIcon);
+                robot[i][j].setToolTipText(onlineStatus[i][j] == RobotOnlineStatus.DEGRADED
+                        ? String.format(DEGRADED_LINK, RobotWatcher.getAverageGap(i, j), 100 * RobotWatcher.getLossRate(i, j))
+                        : null);
             }
         }
     }
@@ -75,8 +75,8 @@ public class KeyboardListener implements KeyEventDispatcher
             default:
                 if(Rules.league instanceof SPL) {
                     switch(key) {
-                        case KeyEvent.VK_B: event = ActionBoard.out[EventHandler.getInstance().data.team[0].teamColor == GameControlData.TEAM_BLUE ? 0 : 1]; break;
-                        case KeyEvent.VK_R: event = ActionBoard.out[EventHandler.getInstance().data.team[0].teamColor == GameControlData.TEAM_RED ? 0 : 1]; break;
+                        case KeyEvent.VK_B: event = ActionBoard.out[EventHandler.getInstance().getGUIData().team[0].teamColor == GameControlData.TEAM_BLUE ? 0 : 1]; break;
+                        case KeyEvent.VK_R: event = ActionBoard.out[EventHandler.getInstance().getGUIData().team[0].teamColor == GameControlData.TEAM_RED ? 0 : 1]; break;
 
                         case KeyEvent.VK_P: event = ActionBoard.pushing; break;
                         case KeyEvent.VK_L: event = ActionBoard.leaving; break;
@@ -89,8 +89,8 @@ public class KeyboardListener implements KeyEventDispatcher
                     }
                 } else if(Rules.league instanceof HL) {
                     switch(key) {
-                        case KeyEvent.VK_C: event = ActionBoard.out[EventHandler.getInstance().data.team[0].teamColor == GameControlData.TEAM_BLUE ? 0 : 1]; break;
-                        case KeyEvent.VK_M: event = ActionBoard.out[EventHandler.getInstance().data.team[0].teamColor == GameControlData.TEAM_RED ? 0 : 1]; break;
+                        case KeyEvent.VK_C: event = ActionBoard.out[EventHandler.getInstance().getGUIData().team[0].teamColor == GameControlData.TEAM_BLUE ? 0 : 1]; break;
+                        case KeyEvent.VK_M: event = ActionBoard.out[EventHandler.getInstance().getGUIData().team[0].teamColor == GameControlData.TEAM_RED ? 0 : 1]; break;
 
                         case KeyEvent.VK_P: event = ActionBoard.pushing; break;
                         case KeyEvent.VK_D: event = ActionBoard.defense; break;
@@ -13,6 +13,7 @@ import java.awt.Image;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.io.Serializable;
 import javax.swing.*;
 
@@ -104,6 +105,7 @@ public class StartInput extends JFrame implements Serializable
         setResizable(false);
         setLayout(new FlowLayout(FlowLayout.CENTER, 0, STANDARD_SPACE));
         
+        Teams.preloadIcons();
         String[] teams = getShortTeams();
         for(int i=0; i<2; i++) {
             teamContainer[i] = new ImagePanel((
@@ -202,6 +204,7 @@ public class StartInput extends JFrame implements Serializable
                             break;
                         }
                     }
+                    Teams.preloadIcons();
                     for(int i=0; i < 2; i++) {
                         teamContainer[i].setImage((
                                 new ImageIcon(ICONS_PATH+Rules.league.leagueDirectory+"/"+BACKGROUND_SIDE[i])).getImage());
@@ -283,19 +286,10 @@ public class StartInput extends JFrame implements Serializable
      */ 
     private String[] getShortTeams()
     {
-        String[] fullTeams = Teams.getNames(true);
-        int k = 0;
-        for(int j=0; j<fullTeams.length; j++) {
-            if(fullTeams[j] != null) {
-                k++;
-            }
-        }
-        String[] out = new String[k];
-        k = 0;
-        for(int j=0; j<fullTeams.length; j++) {
-            if(fullTeams[j] != null) {
-                out[k++] = fullTeams[j];
-            }
+        int[] numbers = Teams.getTeamNumbers();
+        String[] out = new String[numbers.length];
+        for(int j=0; j<numbers.length; j++) {
+            out[j] = numbers[j]+": "+Teams.getName(numbers[j]);
         }
         return out;
     }
@@ -308,17 +302,16 @@ public class StartInput extends JFrame implements Serializable
      */ 
     private void setTeamIcon(int side, int team)
     {
-        teamIcon[side] = new ImageIcon(Teams.getIcon(team));
+        BufferedImage icon = Teams.getIcon(team);
         float scaleFactor;
-        if(teamIcon[side].getImage().getWidth(null) > teamIcon[side].getImage().getHeight(null)) {
-            scaleFactor = (float)IMAGE_SIZE/teamIcon[side].getImage().getWidth(null);
+        if(icon.getWidth() > icon.getHeight()) {
+            scaleFactor = (float)IMAGE_SIZE/icon.getWidth();
         } else {
-            scaleFactor = (float)IMAGE_SIZE/teamIcon[side].getImage().getHeight(null);
+            scaleFactor = (float)IMAGE_SIZE/icon.getHeight();
         }
-        teamIcon[side].setImage(teamIcon[side].getImage().getScaledInstance(
-                (int)(teamIcon[side].getImage().getWidth(null)*scaleFactor),
-                (int)(teamIcon[side].getImage().getHeight(null)*scaleFactor),
-                Image.SCALE_DEFAULT));
+        teamIcon[side] = new ImageIcon(Teams.getIcon(team,
+                (int)(icon.getWidth()*scaleFactor),
+                (int)(icon.getHeight()*scaleFactor)));
     }
     
     /**
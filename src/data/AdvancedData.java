@@ -1,11 +1,5 @@
 package data;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-
 /**
  * @author: Michel Bartsch
  *
@@ -91,22 +85,47 @@ public class AdvancedData extends GameControlData implements Cloneable
     }
     
     /**
-     * Generically clone this object. Everything referenced must be Serializable.
+     * Creates a deep copy of another AdvancedData. Primitives are copied
+     * directly and arrays element by element, so this is much cheaper than
+     * going through serialization. If you add a field to this class or one
+     * of the classes it contains, it must be copied here as well, which
+     * is checked by the AdvancedDataTest.
+     * 
+     * @param other     The AdvancedData to copy.
+     */
+    public AdvancedData(AdvancedData other)
+    {
+        super(other);
+        message = other.message;
+        timeBeforeCurrentGameState = other.timeBeforeCurrentGameState;
+        whenCurrentGameStateBegan = other.whenCurrentGameStateBegan;
+        whenDropIn = other.whenDropIn;
+        for(int i=0; i<2; i++) {
+            System.arraycopy(other.whenPenalized[i], 0, whenPenalized[i], 0, whenPenalized[i].length);
+            System.arraycopy(other.ejected[i], 0, ejected[i], 0, ejected[i].length);
+        }
+        System.arraycopy(other.pushes, 0, pushes, 0, pushes.length);
+        System.arraycopy(other.timeOutActive, 0, timeOutActive, 0, timeOutActive.length);
+        System.arraycopy(other.timeOutTaken, 0, timeOutTaken, 0, timeOutTaken.length);
+        leftSideKickoff = other.leftSideKickoff;
+        playoff = other.playoff;
+        colorChangeAuto = other.colorChangeAuto;
+        testmode = other.testmode;
+        manPause = other.manPause;
+        manPlay = other.manPlay;
+        manWhenClockChanged = other.manWhenClockChanged;
+        manTimeOffset = other.manTimeOffset;
+        manRemainingGameTimeOffset = other.manRemainingGameTimeOffset;
+    }
+    
+    /**
+     * Creates a deep copy of this object using the copy-constructor.
      * @return A deep copy of this object.
      */
+    @Override
     public Object clone()
     {
-        try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            new ObjectOutputStream(out).writeObject(this);
-            ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
-            return new ObjectInputStream(in).readObject();
-        } catch (ClassNotFoundException e) {
-            System.out.println(e.getClass().getName() + ": " + e.getMessage());
-        } catch (IOException e) {
-            System.out.println(e.getClass().getName() + ": " + e.getMessage());
-        }
-        return null; // Should never be reached
+        return new AdvancedData(this);
     }
     
     /**
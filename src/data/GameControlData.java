@@ -55,6 +55,9 @@ public class GameControlData implements Serializable
             4 + // secsRemaining
             2 * TeamInfo.SIZE;
     
+    /** The header as it is streamed, so it must not be converted for every packet. */
+    private static final byte[] HEADER_BYTES = GAMECONTROLLER_STRUCT_HEADER.getBytes();
+    
     //this is streamed
     // GAMECONTROLLER_STRUCT_HEADER                             // header to identify the structure
     // GAMECONTROLLER_STRUCT_VERSION                            // version of the data structure
@@ -88,6 +91,30 @@ public class GameControlData implements Serializable
         team[1].goalColor = GOAL_YELLOW;
     }
     
+    /**
+     * Creates a deep copy of another GameControlData.
+     * 
+     * @param other     The GameControlData to copy.
+     */
+    public GameControlData(GameControlData other)
+    {
+        playersPerTeam = other.playersPerTeam;
+        gameState = other.gameState;
+        firstHalf = other.firstHalf;
+        kickOffTeam = other.kickOffTeam;
+        secGameState = other.secGameState;
+        dropInTeam = other.dropInTeam;
+        dropInTime = other.dropInTime;
+        secsRemaining = other.secsRemaining;
+        for(int i=0; i<team.length; i++) {
+            team[i] = new TeamInfo(other.team[i]);
+        }
+        timeOut = other.timeOut;
+        System.arraycopy(other.penaltyShot, 0, penaltyShot, 0, penaltyShot.length);
+        System.arraycopy(other.penaltyTries, 0, penaltyTries, 0, penaltyTries.length);
+        subTime = other.subTime;
+    }
+    
     /**
      * Returns the corresponding byte-stream of the state of this object.
      *
@@ -96,8 +123,25 @@ public class GameControlData implements Serializable
     public ByteBuffer toByteArray()
     {
         ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        encodeInto(buffer);
+        return buffer;
+    }
+    
+    /**
+     * Writes the state of this object as C-structure into the given buffer,
+     * beginning at its current position. In contrast to toByteArray(),
+     * nothing is allocated, so the same buffer can be reused for every
+     * packet.
+     * 
+     * @param buffer    The buffer to write into. It must have at least SIZE
+     *                  bytes remaining. Its byte order is set to little endian
+     *                  and its position is advanced by SIZE.
+     */
+    public void encodeInto(ByteBuffer buffer)
+    {
+        int start = buffer.position();
         buffer.order(ByteOrder.LITTLE_ENDIAN);
-        buffer.put(GAMECONTROLLER_STRUCT_HEADER.getBytes(), 0, 4);
+        buffer.put(HEADER_BYTES, 0, 4);
         buffer.putInt(GAMECONTROLLER_STRUCT_VERSION);
         buffer.put(playersPerTeam);
         buffer.put(gameState);
@@ -108,17 +152,16 @@ public class GameControlData implements Serializable
         buffer.putShort(dropInTime);
         buffer.putInt(secsRemaining);
         for (TeamInfo aTeam : team) {
-            buffer.put(aTeam.toByteArray());
+            aTeam.encodeInto(buffer);
         }
         /* Hack to have this in the package */
-        buffer.position(SIZE-9);
+        buffer.position(start+SIZE-9);
         buffer.put(timeOut);
         buffer.put(penaltyShot[0]);
         buffer.put(penaltyShot[1]);
         buffer.putShort(penaltyTries[0]);
         buffer.putShort(penaltyTries[1]);
         buffer.putShort(subTime);
-        return buffer;
     }
     
     /**
@@ -131,8 +174,7 @@ public class GameControlData implements Serializable
     public boolean fromByteArray(ByteBuffer buffer)
     {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
-        byte[] header = new byte[4];
-        buffer.get(header, 0, 4);
+        buffer.position(buffer.position() + 4); // skip header
         if(buffer.getInt() != GAMECONTROLLER_STRUCT_VERSION) {
             return false;
         }
@@ -0,0 +1,236 @@
+package data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * This class is a read-only view on a GameControlData packet as it was
+ * received. Instead of unpacking the whole C-structure into a new
+ * GameControlData with its TeamInfos and PlayerInfos, each field is read
+ * directly from the buffer at its fixed offset when it is asked for.
+ * So the same view can be used for every packet without allocating anything.
+ *
+ * The view does not copy the buffer, so its content must not be overwritten
+ * as long as the view is used.
+ */
+public class GameControlDataView
+{
+    /** The offsets of the fields within the C-structure. */
+    private static final int VERSION = 4;
+    private static final int PLAYERS_PER_TEAM = 8;
+    private static final int GAME_STATE = 9;
+    private static final int FIRST_HALF = 10;
+    private static final int KICK_OFF_TEAM = 11;
+    private static final int SEC_GAME_STATE = 12;
+    private static final int DROP_IN_TEAM = 13;
+    private static final int DROP_IN_TIME = 14;
+    private static final int SECS_REMAINING = 16;
+    private static final int TEAM = 20;
+    private static final int TEAM_NUMBER = 0;
+    private static final int TEAM_COLOR = 1;
+    private static final int GOAL_COLOR = 2;
+    private static final int SCORE = 3;
+    private static final int PLAYER = 4;
+    private static final int PENALTY = 0;
+    private static final int SECS_TILL_UNPENALISED = 2;
+    /* Hack to have this in the package */
+    private static final int TIME_OUT = GameControlData.SIZE - 9;
+    private static final int PENALTY_SHOT = GameControlData.SIZE - 8;
+    private static final int PENALTY_TRIES = GameControlData.SIZE - 6;
+    private static final int SUB_TIME = GameControlData.SIZE - 2;
+
+    /** The buffer containing the C-structure. */
+    private ByteBuffer buffer;
+    /** The position within the buffer where the C-structure begins. */
+    private int offset;
+
+
+    /**
+     * Lets this view show the C-structure beginning at the current position
+     * of the given buffer. The buffer's position is not changed, but its
+     * byte order is set to little endian.
+     *
+     * @param buffer    The buffered C-structure.
+     *
+     * @return This view.
+     */
+    public GameControlDataView wrap(ByteBuffer buffer)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer = buffer;
+        offset = buffer.position();
+        return this;
+    }
+
+    /**
+     * Checks whether the wrapped C-structure can be read.
+     *
+     * @return Whether the structure was well formed. That is, it must have
+     *         the proper {@link GameControlData#GAMECONTROLLER_STRUCT_VERSION} set.
+     */
+    public boolean isValid()
+    {
+        return buffer != null
+                && buffer.limit() - offset >= GameControlData.SIZE
+                && buffer.getInt(offset + VERSION) == GameControlData.GAMECONTROLLER_STRUCT_VERSION;
+    }
+
+    public byte getPlayersPerTeam()
+    {
+        return buffer.get(offset + PLAYERS_PER_TEAM);
+    }
+
+    public byte getGameState()
+    {
+        return buffer.get(offset + GAME_STATE);
+    }
+
+    public byte getFirstHalf()
+    {
+        return buffer.get(offset + FIRST_HALF);
+    }
+
+    public byte getKickOffTeam()
+    {
+        return buffer.get(offset + KICK_OFF_TEAM);
+    }
+
+    public byte getSecGameState()
+    {
+        return buffer.get(offset + SEC_GAME_STATE);
+    }
+
+    public byte getDropInTeam()
+    {
+        return buffer.get(offset + DROP_IN_TEAM);
+    }
+
+    public short getDropInTime()
+    {
+        return buffer.getShort(offset + DROP_IN_TIME);
+    }
+
+    public int getSecsRemaining()
+    {
+        return buffer.getInt(offset + SECS_REMAINING);
+    }
+
+    /**
+     * Returns the unique number of a team.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public byte getTeamNumber(int team)
+    {
+        return buffer.get(teamOffset(team) + TEAM_NUMBER);
+    }
+
+    /**
+     * Returns the colour of a team.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public byte getTeamColor(int team)
+    {
+        return buffer.get(teamOffset(team) + TEAM_COLOR);
+    }
+
+    /**
+     * Returns the colour of a team's goal.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public byte getGoalColor(int team)
+    {
+        return buffer.get(teamOffset(team) + GOAL_COLOR);
+    }
+
+    /**
+     * Returns the score of a team.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public byte getScore(int team)
+    {
+        return buffer.get(teamOffset(team) + SCORE);
+    }
+
+    /**
+     * Returns the penalty state of a player.
+     * 
+     * @param team      The team's index within the packet, 0 or 1.
+     * @param player    The player's index, beginning at 0.
+     */
+    public short getPenalty(int team, int player)
+    {
+        return buffer.getShort(playerOffset(team, player) + PENALTY);
+    }
+
+    /**
+     * Returns the estimated time until a player is unpenalised.
+     * 
+     * @param team      The team's index within the packet, 0 or 1.
+     * @param player    The player's index, beginning at 0.
+     */
+    public short getSecsTillUnpenalised(int team, int player)
+    {
+        return buffer.getShort(playerOffset(team, player) + SECS_TILL_UNPENALISED);
+    }
+
+    public byte getTimeOut()
+    {
+        return buffer.get(offset + TIME_OUT);
+    }
+
+    /**
+     * Returns how many penalty-shots a team has made so far.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public byte getPenaltyShot(int team)
+    {
+        return buffer.get(offset + PENALTY_SHOT + team);
+    }
+
+    /**
+     * Returns the penalty-shots of a team, one bit each: 1 = goal; 0 = fail.
+     * 
+     * @param team  The team's index within the packet, 0 or 1.
+     */
+    public short getPenaltyTries(int team)
+    {
+        return buffer.getShort(offset + PENALTY_TRIES + 2 * team);
+    }
+
+    public short getSubTime()
+    {
+        return buffer.getShort(offset + SUB_TIME);
+    }
+
+    /**
+     * Unpacks the viewed C-structure into a new GameControlData. This
+     * allocates, so it should only be used where all fields are needed,
+     * for example to print the whole packet.
+     *
+     * @return A GameControlData with the content of the view.
+     */
+    public GameControlData toGameControlData()
+    {
+        GameControlData data = new GameControlData();
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset);
+        data.fromByteArray(copy);
+        return data;
+    }
+
+    private int teamOffset(int team)
+    {
+        return offset + TEAM + team * TeamInfo.SIZE;
+    }
+
+    private int playerOffset(int team, int player)
+    {
+        return teamOffset(team) + PLAYER + player * PlayerInfo.SIZE;
+    }
+}
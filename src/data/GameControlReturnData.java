@@ -32,6 +32,9 @@ public class GameControlReturnData
             2 + // player
             4; // message
     
+    /** The header as it is streamed, so it must not be converted for every packet. */
+    private static final byte[] HEADER_BYTES = GAMECONTROLLER_RETURN_STRUCT_HEADER.getBytes();
+    
     //this is streamed
     String header;          // header to identify the structure
     int version;            // version of the data structure
@@ -59,6 +62,7 @@ public class GameControlReturnData
 
     /**
      * Changes the state of this object to the state of the given byte-stream.
+     * Nothing is allocated, so the same object can be reused for every packet.
      *
      * @param buffer    the byte-stream to parse
      * @return          returns true if and only if the state of the object could be changed, false otherwise
@@ -68,13 +72,15 @@ public class GameControlReturnData
         try {
             buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-            byte[] header = new byte[4];
-            buffer.get(header, 0, 4);
-            this.header = new String(header);
+            boolean headerMatches = true;
+            for(int i=0; i<HEADER_BYTES.length; i++) {
+                headerMatches &= buffer.get() == HEADER_BYTES[i];
+            }
 
-            if(!this.header.equals(GAMECONTROLLER_RETURN_STRUCT_HEADER)) {
+            if(!headerMatches) {
                 return false;
             } else {
+                header = GAMECONTROLLER_RETURN_STRUCT_HEADER;
                 version = buffer.getInt();
                 team = buffer.getShort();
                 player = buffer.getShort();
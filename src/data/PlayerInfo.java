@@ -46,6 +46,22 @@ public class PlayerInfo implements Serializable
     public short penalty = PENALTY_NONE;    // penalty state of the player
     protected short secsTillUnpenalised;    // estimate of time till unpenalised
     
+    /**
+     * Creates a new PlayerInfo.
+     */
+    public PlayerInfo() {}
+    
+    /**
+     * Creates a copy of another PlayerInfo.
+     * 
+     * @param other     The PlayerInfo to copy.
+     */
+    public PlayerInfo(PlayerInfo other)
+    {
+        penalty = other.penalty;
+        secsTillUnpenalised = other.secsTillUnpenalised;
+    }
+    
     /**
      * Packing this Java class to the C-structure to be send.
      * @return Byte array representing the C-structure.
@@ -53,10 +69,22 @@ public class PlayerInfo implements Serializable
     public byte[] toByteArray()
     {
         ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        encodeInto(buffer);
+        return buffer.array();
+    }
+    
+    /**
+     * Packing this Java class to the C-structure at the current position of
+     * the given buffer. Nothing is allocated.
+     * 
+     * @param buffer    The buffer to write into. Its byte order is set to
+     *                  little endian and its position is advanced by SIZE.
+     */
+    public void encodeInto(ByteBuffer buffer)
+    {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.putShort(penalty);
         buffer.putShort(secsTillUnpenalised);
-        return buffer.array();
     }
     
     /**
@@ -0,0 +1,150 @@
+package data;
+
+
+/**
+ * This class flattens an AdvancedData into a vector of longs and back, one
+ * element for each field (except the message). As all vectors of the same
+ * league have the same length and layout, two states can be compared and
+ * stored as the difference between them just by comparing the elements.
+ *
+ * If you add a field to AdvancedData or one of the classes it contains, it
+ * must be added to encode and decode in the same order.
+ */
+public class StateVector
+{
+    /** The index of whenCurrentGameStateBegan within a vector. */
+    public static final int WHEN_CURRENT_GAME_STATE_BEGAN = 0;
+
+    /** The number of elements not depending on the number of players. */
+    private static final int FIXED_LENGTH = 32;
+    /** The number of elements of each team not depending on the number of players. */
+    private static final int TEAM_LENGTH = 4;
+
+
+    /**
+     * Returns the length of all vectors in the current league.
+     *
+     * @return The number of elements.
+     */
+    public static int getLength()
+    {
+        return FIXED_LENGTH
+                + 2 * (TEAM_LENGTH + 2 * TeamInfo.MAX_NUM_PLAYERS)
+                + 2 * 2 * Rules.league.teamSize;
+    }
+
+    /**
+     * Flattens a data into a vector.
+     *
+     * @param data      The data to flatten.
+     * @param vector    The vector to write into, its length must be getLength().
+     */
+    public static void encode(AdvancedData data, long[] vector)
+    {
+        int i = 0;
+        vector[i++] = data.whenCurrentGameStateBegan;
+        vector[i++] = data.playersPerTeam;
+        vector[i++] = data.gameState;
+        vector[i++] = data.firstHalf;
+        vector[i++] = data.kickOffTeam;
+        vector[i++] = data.secGameState;
+        vector[i++] = data.dropInTeam;
+        vector[i++] = data.dropInTime;
+        vector[i++] = data.secsRemaining;
+        vector[i++] = data.timeOut;
+        vector[i++] = data.subTime;
+        vector[i++] = data.timeBeforeCurrentGameState;
+        vector[i++] = data.whenDropIn;
+        vector[i++] = toLong(data.leftSideKickoff);
+        vector[i++] = toLong(data.playoff);
+        vector[i++] = toLong(data.colorChangeAuto);
+        vector[i++] = toLong(data.testmode);
+        vector[i++] = toLong(data.manPause);
+        vector[i++] = toLong(data.manPlay);
+        vector[i++] = data.manWhenClockChanged;
+        vector[i++] = data.manTimeOffset;
+        vector[i++] = data.manRemainingGameTimeOffset;
+        for(int side=0; side<2; side++) {
+            vector[i++] = data.penaltyShot[side];
+            vector[i++] = data.penaltyTries[side];
+            vector[i++] = data.pushes[side];
+            vector[i++] = toLong(data.timeOutActive[side]);
+            vector[i++] = toLong(data.timeOutTaken[side]);
+        }
+        for(int side=0; side<2; side++) {
+            TeamInfo team = data.team[side];
+            vector[i++] = team.teamNumber;
+            vector[i++] = team.teamColor;
+            vector[i++] = team.goalColor;
+            vector[i++] = team.score;
+            for(int j=0; j<team.player.length; j++) {
+                vector[i++] = team.player[j].penalty;
+                vector[i++] = team.player[j].secsTillUnpenalised;
+            }
+            for(int j=0; j<data.whenPenalized[side].length; j++) {
+                vector[i++] = data.whenPenalized[side][j];
+                vector[i++] = toLong(data.ejected[side][j]);
+            }
+        }
+    }
+
+    /**
+     * Sets all fields of a data from a vector.
+     *
+     * @param vector    The vector to read from.
+     * @param data      The data to write into. Its message is not changed.
+     */
+    public static void decode(long[] vector, AdvancedData data)
+    {
+        int i = 0;
+        data.whenCurrentGameStateBegan = vector[i++];
+        data.playersPerTeam = (byte)vector[i++];
+        data.gameState = (byte)vector[i++];
+        data.firstHalf = (byte)vector[i++];
+        data.kickOffTeam = (byte)vector[i++];
+        data.secGameState = (byte)vector[i++];
+        data.dropInTeam = (byte)vector[i++];
+        data.dropInTime = (short)vector[i++];
+        data.secsRemaining = (int)vector[i++];
+        data.timeOut = (byte)vector[i++];
+        data.subTime = (short)vector[i++];
+        data.timeBeforeCurrentGameState = vector[i++];
+        data.whenDropIn = vector[i++];
+        data.leftSideKickoff = vector[i++] != 0;
+        data.playoff = vector[i++] != 0;
+        data.colorChangeAuto = vector[i++] != 0;
+        data.testmode = vector[i++] != 0;
+        data.manPause = vector[i++] != 0;
+        data.manPlay = vector[i++] != 0;
+        data.manWhenClockChanged = vector[i++];
+        data.manTimeOffset = vector[i++];
+        data.manRemainingGameTimeOffset = vector[i++];
+        for(int side=0; side<2; side++) {
+            data.penaltyShot[side] = (byte)vector[i++];
+            data.penaltyTries[side] = (short)vector[i++];
+            data.pushes[side] = (int)vector[i++];
+            data.timeOutActive[side] = vector[i++] != 0;
+            data.timeOutTaken[side] = vector[i++] != 0;
+        }
+        for(int side=0; side<2; side++) {
+            TeamInfo team = data.team[side];
+            team.teamNumber = (byte)vector[i++];
+            team.teamColor = (byte)vector[i++];
+            team.goalColor = (byte)vector[i++];
+            team.score = (byte)vector[i++];
+            for(int j=0; j<team.player.length; j++) {
+                team.player[j].penalty = (short)vector[i++];
+                team.player[j].secsTillUnpenalised = (short)vector[i++];
+            }
+            for(int j=0; j<data.whenPenalized[side].length; j++) {
+                data.whenPenalized[side][j] = vector[i++];
+                data.ejected[side][j] = vector[i++] != 0;
+            }
+        }
+    }
+
+    private static long toLong(boolean value)
+    {
+        return value ? 1 : 0;
+    }
+}
@@ -0,0 +1,173 @@
+package data;
+
+import common.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * This class holds the teams of a league, read from its config file. The
+ * teams are stored in arrays as long as the number of teams, ordered by
+ * their teamNumber. A team is found by its teamNumber through a small hash
+ * table with open addressing, so finding it takes constant time and the
+ * memory needed does not depend on how high the teamNumbers are.
+ */
+public class TeamIndex
+{
+    /** The teamNumbers, ascending. */
+    private final int[] numbers;
+    /** The names of the teams, in the same order. */
+    private final String[] names;
+    /** The hash table, each entry is the index of a team + 1 or 0 if empty. */
+    private final int[] table;
+
+
+    /**
+     * Reads the teams from a config file in a single pass. Each line must
+     * look like "<teamNumber>=<name>". Lines that do not are skipped. If a
+     * teamNumber is given more than once, the last name is taken.
+     *
+     * @param lines     The lines of the config file.
+     * @param file      The name of the config file for error messages.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public TeamIndex(BufferedReader lines, String file) throws IOException
+    {
+        int[] readNumbers = new int[64];
+        String[] readNames = new String[64];
+        int count = 0;
+        String line;
+        int i = 0;
+        while((line = lines.readLine()) != null) {
+            i++;
+            int separator = line.indexOf('=');
+            int number;
+            try {
+                number = separator > 0 ? Integer.parseInt(line.substring(0, separator).trim()) : -1;
+            } catch(NumberFormatException e) {
+                number = -1;
+            }
+            if(number < 0) {
+                if(line.trim().length() > 0) {
+                    Log.error("cannot parse line "+i+" of "+file);
+                }
+                continue;
+            }
+            if(count == readNumbers.length) {
+                readNumbers = Arrays.copyOf(readNumbers, 2 * count);
+                readNames = Arrays.copyOf(readNames, 2 * count);
+            }
+            readNumbers[count] = number;
+            readNames[count++] = line.substring(separator + 1);
+        }
+
+        // order by teamNumber, keeping the order of equal ones
+        final int[] unordered = readNumbers;
+        Integer[] order = new Integer[count];
+        for(int j=0; j<count; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                return unordered[a] < unordered[b] ? -1 : (unordered[a] == unordered[b] ? a - b : 1);
+            }
+        });
+        int[] sortedNumbers = new int[count];
+        String[] sortedNames = new String[count];
+        int size = 0;
+        for(int j=0; j<count; j++) {
+            if(size > 0 && sortedNumbers[size-1] == readNumbers[order[j]]) {
+                size--;
+            }
+            sortedNumbers[size] = readNumbers[order[j]];
+            sortedNames[size++] = readNames[order[j]];
+        }
+        numbers = Arrays.copyOf(sortedNumbers, size);
+        names = Arrays.copyOf(sortedNames, size);
+
+        int capacity = 2;
+        while(capacity < 2 * size) {
+            capacity *= 2;
+        }
+        table = new int[capacity];
+        for(int j=0; j<size; j++) {
+            int slot = hash(numbers[j]);
+            while(table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = j + 1;
+        }
+    }
+
+    /**
+     * Returns the number of teams.
+     *
+     * @return The number of teams.
+     */
+    public int size()
+    {
+        return numbers.length;
+    }
+
+    /**
+     * Finds a team by its teamNumber.
+     *
+     * @param number    The teamNumber.
+     *
+     * @return The index of the team or -1 if there is no such team.
+     */
+    public int indexOf(int number)
+    {
+        for(int slot = hash(number); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+            if(numbers[table[slot] - 1] == number) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the teamNumber of a team.
+     *
+     * @param index     The index of the team, between 0 and size()-1.
+     *
+     * @return The teamNumber.
+     */
+    public int getNumber(int index)
+    {
+        return numbers[index];
+    }
+
+    /**
+     * Returns the name of a team.
+     *
+     * @param index     The index of the team, between 0 and size()-1.
+     *
+     * @return The name.
+     */
+    public String getName(int index)
+    {
+        return names[index];
+    }
+
+    /**
+     * Returns all teamNumbers.
+     *
+     * @return A new array with the teamNumbers, ascending.
+     */
+    public int[] getNumbers()
+    {
+        return numbers.clone();
+    }
+
+    private int hash(int number)
+    {
+        int h = number * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & (table.length - 1);
+    }
+}
@@ -46,6 +46,22 @@ public class TeamInfo implements Serializable
         }
     }
     
+    /**
+     * Creates a deep copy of another TeamInfo.
+     * 
+     * @param other     The TeamInfo to copy.
+     */
+    public TeamInfo(TeamInfo other)
+    {
+        teamNumber = other.teamNumber;
+        teamColor = other.teamColor;
+        goalColor = other.goalColor;
+        score = other.score;
+        for(int i=0; i<player.length; i++) {
+            player[i] = new PlayerInfo(other.player[i]);
+        }
+    }
+    
     /**
      * Packing this Java class to the C-structure to be send.
      * @return Byte array representing the C-structure.
@@ -53,15 +69,27 @@ public class TeamInfo implements Serializable
     public byte[] toByteArray()
     {
         ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        encodeInto(buffer);
+        return buffer.array();
+    }
+    
+    /**
+     * Packing this Java class to the C-structure at the current position of
+     * the given buffer. Nothing is allocated.
+     * 
+     * @param buffer    The buffer to write into. Its byte order is set to
+     *                  little endian and its position is advanced by SIZE.
+     */
+    public void encodeInto(ByteBuffer buffer)
+    {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.put(teamNumber);
         buffer.put(teamColor);
         buffer.put(goalColor);
         buffer.put(score);
         for(int i=0; i<MAX_NUM_PLAYERS; i++) {
-            buffer.put(player[i].toByteArray());
+            player[i].encodeInto(buffer);
         }
-        return buffer.array();
     }
     
     /**
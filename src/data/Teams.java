@@ -3,6 +3,10 @@ package data;
 import common.Log;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
@@ -10,6 +14,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import javax.imageio.ImageIO;
 
 
@@ -19,6 +26,12 @@ import javax.imageio.ImageIO;
  * This class provides the icons and names including unique teamNumbers of all
  * teams written in the config file.
  * 
+ * The icons of a league can be read in the background by preloadIcons, so
+ * they are ready when they are shown. Icons scaled to the sizes they are
+ * drawn in are cached, so drawing them is just copying the pixels. When the
+ * scaled icons take more than SCALED_ICONS_BUDGET bytes, the ones used
+ * least recently are dropped.
+ * 
  * This class is a sigleton!
  */
 public class Teams
@@ -35,57 +48,33 @@ public class Teams
      * "7.png".
      */
     private static final String[] PIC_ENDING = {"png", "gif", "jpg", "jpeg"};
+    /** The number of bytes the scaled icons may take. */
+    private static final long SCALED_ICONS_BUDGET = 16 * 1024 * 1024;
     
     /** The instance of the singleton. */
     private static Teams instance = new Teams();
     
-    /** The names read from the config files. */
-    private String[][] names;
+    /** The teams of each league, null until they were read. */
+    private TeamIndex[] teams = new TeamIndex[Rules.LEAGUES.length];
     /**
-     * The icons read.
+     * The icons read, by league and the index of the team in its TeamIndex.
      * Note, that not all icons are read from the start but just when you ask
      * for them.
      */
-    private BufferedImage[][] icons;
+    private BufferedImage[][] icons = new BufferedImage[Rules.LEAGUES.length][];
+    /**
+     * The scaled icons, by league, team and size (see getScaledIconKey),
+     * ordered from the least recently used to the most recently used one.
+     */
+    private LinkedHashMap<Long, BufferedImage> scaledIcons = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true);
+    /** The number of bytes the scaled icons take. */
+    private long scaledIconsSize = 0;
     
     
     /**
      * Creates a new Teams.
      */
-    private Teams()
-    {
-        names = new String[Rules.LEAGUES.length][];
-        icons = new BufferedImage[Rules.LEAGUES.length][];
-        for(int i=0; i < Rules.LEAGUES.length; i++) {
-            String dir = Rules.LEAGUES[i].leagueDirectory;
-            int value;
-            int maxValue = 0;
-            BufferedReader br = null;
-            try {
-                InputStream inStream = new FileInputStream(PATH+dir+"/"+CONFIG);
-                br = new BufferedReader(
-                        new InputStreamReader(inStream, CHARSET));
-                String line;
-                while((line = br.readLine()) != null) {
-                    value = Integer.valueOf(line.split("=")[0]);
-                    if(value > maxValue) {
-                        maxValue = value;
-                    }
-                }
-            } catch(IOException e) {
-                Log.error("cannot load "+PATH+dir+"/"+CONFIG);
-            }
-            finally {
-                if(br != null) {
-                    try {
-                        br.close();
-                    } catch(Exception e) {}
-                }
-            }
-            names[i] = new String[maxValue+1];
-            icons[i] = new BufferedImage[maxValue+1];
-        }
-    }
+    private Teams() {}
     
     /**
      * Returns the index the current league has within the LEAGUES-array.
@@ -105,59 +94,63 @@ public class Teams
     }
     
     /**
-     * Reads the names of all teams in the config file.
-     * You dont need to use this because the getNames method automatically
-     * uses this if needed.
+     * Returns the teams of a league. They are read from the config file
+     * the first time.
+     * 
+     * @param leagueIndex   The index of the league within the LEAGUES-array.
+     * 
+     * @return The teams of the league.
      */
-    public static void readNames()
+    private static synchronized TeamIndex getTeams(int leagueIndex)
     {
-        int value;
-        BufferedReader br = null;
-        try {
-            InputStream inStream = new FileInputStream(PATH+Rules.league.leagueDirectory+"/"+CONFIG);
-            br = new BufferedReader(
-                    new InputStreamReader(inStream, CHARSET));
-            String line;
-            while((line = br.readLine()) != null) {
-                value = Integer.valueOf(line.split("=")[0]);
-                instance.names[getLeagueIndex()][value] = line.split("=")[0]+": "+line.split("=")[1];
-            }
-        } catch(IOException e) {
-            Log.error("cannot load "+PATH+Rules.league.leagueDirectory+"/"+CONFIG);
-        }
-        finally {
-            if(br != null) {
+        if(instance.teams[leagueIndex] == null) {
+            String file = PATH+Rules.LEAGUES[leagueIndex].leagueDirectory+"/"+CONFIG;
+            BufferedReader br = null;
+            try {
+                InputStream inStream = new FileInputStream(file);
+                br = new BufferedReader(
+                        new InputStreamReader(inStream, CHARSET));
+                instance.teams[leagueIndex] = new TeamIndex(br, file);
+            } catch(IOException e) {
+                Log.error("cannot load "+file);
                 try {
-                    br.close();
-                } catch(Exception e) {}
+                    instance.teams[leagueIndex] = new TeamIndex(new BufferedReader(new StringReader("")), file);
+                } catch(IOException e2) {}
             }
+            finally {
+                if(br != null) {
+                    try {
+                        br.close();
+                    } catch(Exception e) {}
+                }
+            }
+            instance.icons[leagueIndex] = new BufferedImage[instance.teams[leagueIndex].size()];
         }
+        return instance.teams[leagueIndex];
     }
     
     /**
-     * Returns an array containing the names of all teams.
+     * Returns the name of a team of the current league.
      * 
-     * @param withNumbers   If true, each name starts with "<teamNumber>: ".
+     * @param team  The unique teamNumber of the team.
      * 
-     * @return An array containing the names at their teamNumber`s position.
+     * @return The name or null if there is no team with this teamNumber.
      */
-    public static String[] getNames(boolean withNumbers)
+    public static String getName(int team)
     {
-        int leagueIndex = getLeagueIndex();
-        if(instance.names[leagueIndex][0] == null) {
-            readNames();
-        }
-        if(withNumbers) {
-            return instance.names[leagueIndex];
-        } else {
-            String[] out = new String[instance.names[leagueIndex].length];
-            for(int i=0; i<instance.names[leagueIndex].length; i++) {
-                if(instance.names[leagueIndex][i] != null) {
-                    out[i] = instance.names[leagueIndex][i].split(":")[1].substring(1);
-                }
-            }
-            return out;
-        }
+        TeamIndex teams = getTeams(getLeagueIndex());
+        int index = teams.indexOf(team);
+        return index >= 0 ? teams.getName(index) : null;
+    }
+    
+    /**
+     * Returns the teamNumbers of all teams of the current league.
+     * 
+     * @return A new array with the teamNumbers, ascending.
+     */
+    public static int[] getTeamNumbers()
+    {
+        return getTeams(getLeagueIndex()).getNumbers();
     }
     
     /**
@@ -167,11 +160,24 @@ public class Teams
      * @param team Number of the team which icon should be read.
      */
     public static void readIcon(int team)
+    {
+        readIcon(getLeagueIndex(), team);
+    }
+    
+    /**
+     * Loads a team`s icon of a league.
+     * 
+     * @param leagueIndex   The index of the league within the LEAGUES-array.
+     * @param team          Number of the team which icon should be read.
+     * 
+     * @return The icon, a transparent one if there is none.
+     */
+    private static synchronized BufferedImage readIcon(int leagueIndex, int team)
     {
         BufferedImage out = null;
         File file = null;
         for(int i=0; i< PIC_ENDING.length; i++) {
-            file = new File(PATH+Rules.league.leagueDirectory+"/"+team+"."+PIC_ENDING[i]);
+            file = new File(PATH+Rules.LEAGUES[leagueIndex].leagueDirectory+"/"+team+"."+PIC_ENDING[i]);
             if(file.exists()) {
                 break;
             }
@@ -192,7 +198,38 @@ public class Teams
             graphics.setColor(new Color(0f, 0f, 0f, 0f));
             graphics.fillRect(0, 0, out.getWidth(), out.getHeight());
         }
-        instance.icons[getLeagueIndex()][team] = out;
+        int index = getTeams(leagueIndex).indexOf(team);
+        if(index >= 0) {
+            instance.icons[leagueIndex][index] = out;
+        }
+        return out;
+    }
+    
+    /**
+     * Starts reading the icons of all teams of the current league in the
+     * background, if they were not read yet.
+     */
+    public static void preloadIcons()
+    {
+        final int leagueIndex = getLeagueIndex();
+        final TeamIndex teams = getTeams(leagueIndex);
+        Thread loader = new Thread("Teams")
+        {
+            @Override
+            public void run()
+            {
+                for(int index=0; index<teams.size(); index++) {
+                    synchronized(Teams.class) {
+                        if(instance.icons[leagueIndex][index] == null) {
+                            readIcon(leagueIndex, teams.getNumber(index));
+                        }
+                    }
+                }
+            }
+        };
+        loader.setDaemon(true);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
     }
     
     /**
@@ -202,12 +239,75 @@ public class Teams
      * 
      * @return The team´s icon.
      */
-    public static BufferedImage getIcon(int team)
+    public static synchronized BufferedImage getIcon(int team)
     {
         int leagueIndex = getLeagueIndex();
-        if(instance.icons[leagueIndex][team] == null) {
-            readIcon(team);
+        int index = getTeams(leagueIndex).indexOf(team);
+        if(index >= 0 && instance.icons[leagueIndex][index] != null) {
+            return instance.icons[leagueIndex][index];
+        }
+        return readIcon(leagueIndex, team);
+    }
+    
+    /**
+     * Returns a team`s icon scaled to a size. It is scaled only once for
+     * each size and stored in a format that can be drawn fast on the
+     * screen. So it can be drawn as it is whenever needed.
+     * 
+     * @param team      The unique teamNumber of the team you want the icon for.
+     * @param width     The width of the scaled icon in pixels.
+     * @param height    The height of the scaled icon in pixels.
+     * 
+     * @return The team´s icon in the size given. It must not be changed.
+     */
+    public static synchronized BufferedImage getIcon(int team, int width, int height)
+    {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        Long key = getScaledIconKey(getLeagueIndex(), team, width, height);
+        BufferedImage scaled = instance.scaledIcons.get(key);
+        if(scaled == null) {
+            scaled = createCompatibleImage(width, height);
+            Graphics2D g = scaled.createGraphics();
+            g.drawImage(getIcon(team).getScaledInstance(width, height, Image.SCALE_SMOOTH), 0, 0, null);
+            g.dispose();
+            instance.scaledIcons.put(key, scaled);
+            instance.scaledIconsSize += getSize(scaled);
+            Iterator<BufferedImage> leastRecentlyUsed = instance.scaledIcons.values().iterator();
+            while(instance.scaledIconsSize > SCALED_ICONS_BUDGET && instance.scaledIcons.size() > 1) {
+                instance.scaledIconsSize -= getSize(leastRecentlyUsed.next());
+                leastRecentlyUsed.remove();
+            }
         }
-        return instance.icons[leagueIndex][team];
+        return scaled;
+    }
+    
+    /**
+     * Returns the key of a scaled icon in the cache.
+     */
+    private static Long getScaledIconKey(int leagueIndex, int team, int width, int height)
+    {
+        return (((long)leagueIndex << 16 | team) << 32) | ((long)(width & 0xffff) << 16) | (height & 0xffff);
+    }
+    
+    /**
+     * Creates an image with transparency in the format of the screen, so
+     * it can be drawn without being converted.
+     */
+    private static BufferedImage createCompatibleImage(int width, int height)
+    {
+        if(GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+    
+    /**
+     * Returns roughly how many bytes an image takes.
+     */
+    private static long getSize(BufferedImage image)
+    {
+        return 4L * image.getWidth() * image.getHeight();
     }
 }
\ No newline at end of file
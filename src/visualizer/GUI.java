@@ -2,6 +2,7 @@ package visualizer;
 
 import common.Log;
 import data.GameControlData;
+import data.GameControlDataView;
 import data.Rules;
 import data.Teams;
 import java.awt.*;
@@ -9,9 +10,11 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -21,6 +24,12 @@ import javax.swing.JFrame;
  * @author: Michel Bartsch
  * 
  * This class displays the game-state
+ * 
+ * The display is drawn in two layers. The static layer holds the background
+ * and the team icons. It is drawn once into a VolatileImage, which usually
+ * lives in the graphics memory, and is only copied afterwards. Only the
+ * clock, the score and the states are drawn on top of it. The display is
+ * not drawn at all if none of the values shown has changed.
  */
 public class GUI extends JFrame
 {
@@ -30,7 +39,7 @@ public class GUI extends JFrame
      */
     private static final boolean IS_OSX = System.getProperty("os.name").contains("OS X");
     private static final String WINDOW_TITLE = "Visualizer";
-    private static final int DISPLAY_UPDATE_DELAY = 500;
+    private static final int MAX_FRAME_RATE = 30;
     private static final String STANDARD_FONT = Font.DIALOG;
     private static final double STANDARD_FONT_SIZE = 0.09;
     private static final double STANDARD_FONT_XXL_SIZE = 0.16;
@@ -46,11 +55,21 @@ public class GUI extends JFrame
 
     BufferStrategy bufferStrategy;
     /** If testmode is on to just display whole GameControlData. */
-    private boolean testmode = false;
+    private volatile boolean testmode = false;
+    /** The packets received are taken from this. */
+    private final Mailbox<GameControlDataView> mailbox;
     /** The last data received to show. */
-    private GameControlData data = null;
+    private GameControlDataView data = null;
     /** The background. */
     private BufferedImage background;
+    /** The static layer with the background and the team icons. */
+    private VolatileImage staticLayer;
+    /** The team numbers shown in the static layer, empty for no icons. */
+    private int[] staticTeams;
+    /** The values shown when the display was drawn the last time. */
+    private long[] shown;
+    /** If the display must be drawn again although nothing changed. */
+    private volatile boolean repaintNeeded = true;
     
     /** The fonts used. */
     private Font testFont;
@@ -61,10 +80,14 @@ public class GUI extends JFrame
     
     /**
      * Creates a new GUI.
+     * 
+     * @param mailbox   The mailbox the Listener puts the packets received
+     *                  into.
      */
-    GUI()
+    GUI(Mailbox<GameControlDataView> mailbox)
     {
         super(WINDOW_TITLE, devices[devices.length - 1].getDefaultConfiguration());
+        this.mailbox = mailbox;
         
         setUndecorated(true);
         if(IS_OSX && devices.length != 1) {
@@ -106,19 +129,21 @@ public class GUI extends JFrame
         setVisible(true);
         createBufferStrategy(2);
         bufferStrategy = getBufferStrategy();
-        Thread displayUpdater = new Thread()
+        Thread renderLoop = new Thread()
         {
             @Override
             public void run() {
+                long frameTime = 1000 / MAX_FRAME_RATE;
                 while(true) {
-                    update(data);
+                    long start = System.currentTimeMillis();
+                    render(GUI.this.mailbox.take());
                     try {
-                        Thread.sleep(DISPLAY_UPDATE_DELAY);
+                        Thread.sleep(Math.max(1, frameTime - (System.currentTimeMillis() - start)));
                     } catch (InterruptedException e) {}
                 }
             }
         };
-        displayUpdater.start();
+        renderLoop.start();
     }
     
     /**
@@ -127,18 +152,28 @@ public class GUI extends JFrame
     public void toggleTestmode()
     {
         testmode = !testmode;
-        update(data);
+        repaintNeeded = true;
     }
     
     /**
-     * This is called by the Listener after receiving GameControlData to show
-     * them on the gui.
+     * This is called by the render loop once per frame to show the latest
+     * GameControlData received. Nothing is drawn if nothing changed.
      * 
-     * @param data  The GameControlData to show.
+     * @param fresh The view on the GameControlData received since the last
+     *              frame, null if there is none. Its buffer is not
+     *              overwritten before the next call of this method.
      */
-    public synchronized void update(GameControlData data)
+    private void render(GameControlDataView fresh)
     {
-        this.data = data;
+        if(fresh != null) {
+            data = fresh;
+        }
+        long[] values = getShown();
+        if(!repaintNeeded && (testmode ? fresh == null : Arrays.equals(values, shown))) {
+            return;
+        }
+        repaintNeeded = false;
+        shown = values;
         do {
             do {
                 Graphics g = bufferStrategy.getDrawGraphics();
@@ -149,6 +184,50 @@ public class GUI extends JFrame
         } while (bufferStrategy.contentsLost());
     }
     
+    /**
+     * The window is drawn by update. If the system asks to paint it, for
+     * example because it was covered, it is drawn again with the next
+     * update.
+     * 
+     * @param g  This is ignored.
+     */
+    @Override
+    public void paint(Graphics g)
+    {
+        repaintNeeded = true;
+    }
+    
+    /**
+     * Collects all values of the data that are shown apart from the static
+     * layer, to find out whether the display must be drawn again.
+     * 
+     * @return The values, empty if there is no data.
+     */
+    private long[] getShown()
+    {
+        if(data == null) {
+            return new long[0];
+        }
+        return new long[] {
+            data.getSecsRemaining(),
+            data.getSubTime(),
+            data.getGameState(),
+            data.getSecGameState(),
+            data.getFirstHalf(),
+            data.getTimeOut(),
+            data.getTeamColor(0),
+            data.getScore(0),
+            data.getPenaltyShot(0),
+            data.getPenaltyTries(0),
+            data.getTeamColor(1),
+            data.getScore(1),
+            data.getPenaltyShot(1),
+            data.getPenaltyTries(1),
+            data.getTeamNumber(0),
+            data.getTeamNumber(1)
+        };
+    }
+    
     /**
      * This draws the whole visualizer.
      * 
@@ -156,19 +235,15 @@ public class GUI extends JFrame
      */
     public final void draw(Graphics g)
     {
+        drawStaticLayer(g);
+        
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, getWidth(), getHeight());
-        g.drawImage(background, 0, 0, null);
-        
         if(data == null) {
             drawNoPackage(g);
         } else if(testmode) {
             drawTestmode(g);
         } else {
-            drawTeams(g);
             drawScores(g);
             drawTime(g);
             drawSecState(g);
@@ -178,6 +253,39 @@ public class GUI extends JFrame
         }
     }
     
+    /**
+     * This copies the static layer, the background and the team icons. The
+     * layer is only drawn again if the teams changed or its content got
+     * lost.
+     * 
+     * @param g  The graphics object to draw on.
+     */
+    private void drawStaticLayer(Graphics g)
+    {
+        int[] teams = (data == null) || testmode ? new int[0]
+                : new int[] {data.getTeamNumber(0), data.getTeamNumber(1)};
+        do {
+            int state = staticLayer == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                    : staticLayer.validate(getGraphicsConfiguration());
+            if(state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                staticLayer = createVolatileImage(getWidth(), getHeight());
+            }
+            if(state != VolatileImage.IMAGE_OK || !Arrays.equals(teams, staticTeams)) {
+                Graphics2D layer = staticLayer.createGraphics();
+                layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                layer.setColor(Color.WHITE);
+                layer.fillRect(0, 0, getWidth(), getHeight());
+                layer.drawImage(background, 0, 0, null);
+                if(teams.length > 0) {
+                    drawTeams(layer);
+                }
+                layer.dispose();
+                staticTeams = teams;
+            }
+            g.drawImage(staticLayer, 0, 0, null);
+        } while(staticLayer.contentsLost());
+    }
+    
     /**
      * This draws something to inform that there is no package to draw.
      * 
@@ -201,6 +309,7 @@ public class GUI extends JFrame
         g.setFont(testFont);
         int x = getSizeToWidth(0.08);
         int y = getSizeToHeight(0.3);
+        GameControlData data = this.data.toGameControlData();
         String[] out = data.toString().split("\n");
         for(int i=0; i<out.length; i++) {
             g.drawString(out[i], x, y);
@@ -213,6 +322,7 @@ public class GUI extends JFrame
                 y += testFont.getSize()*1.2;
             }
         }
+        g.drawString("packets: "+mailbox.getPublished()+" (coalesced: "+mailbox.getCoalesced()+")", x, y);
         
         x = getSizeToWidth(0.35);
         for(int i=0; i<2; i++) {
@@ -240,8 +350,8 @@ public class GUI extends JFrame
         int size = getSizeToWidth(0.3);
         //int yName = (int)(y + size * 1.15);
         BufferedImage[] icons = new BufferedImage[] {
-            Teams.getIcon(data.team[0].teamNumber),
-            Teams.getIcon(data.team[1].teamNumber)};
+            Teams.getIcon(data.getTeamNumber(0)),
+            Teams.getIcon(data.getTeamNumber(1))};
         /* Use this lines to display team-names and one line below
         g.setFont(standardSmalFont);
         int fontSize = g.getFont().getSize();
@@ -249,14 +359,14 @@ public class GUI extends JFrame
         while(!fittingSize) {
             fittingSize = true;
             for(int i=0; i<2; i++) {
-                if(g.getFontMetrics().stringWidth(Teams.getNames(false)[data.team[i].teamNumber]) > size) {
+                if(g.getFontMetrics().stringWidth(Teams.getName(data.getTeamNumber(i))) > size) {
                     fittingSize = false;
                     g.setFont(g.getFont().deriveFont(Font.PLAIN, --fontSize));
                 }
             }
         }*/
         for(int i=0; i<2; i++) {
-            g.setColor(Rules.league.teamColor[data.team[i].teamColor]);
+            g.setColor(Rules.league.teamColor[data.getTeamColor(i)]);
             float scaleFactorX = 1;
             float scaleFactorY = 1;
             if(icons[i].getWidth() * 1.2f > icons[i].getHeight()) {
@@ -266,13 +376,11 @@ public class GUI extends JFrame
             }
             int offsetX = (int)((size - size*scaleFactorX)/2);
             int offsetY = (int)((size - size*scaleFactorY)/2);
-            g.drawImage(icons[i],
+            g.drawImage(Teams.getIcon(data.getTeamNumber(i), (int)(scaleFactorX*size), (int)(scaleFactorY*size)),
                     (i==1 ? x : getWidth()-x-size) + offsetX,
-                    y+offsetY,
-                    (int)(scaleFactorX*size),
-                    (int)(scaleFactorY*size), null);
+                    y+offsetY, null);
             /* Use this line to display team-names
-            drawCenteredString(g, Teams.getNames(false)[data.team[i].teamNumber],
+            drawCenteredString(g, Teams.getName(data.getTeamNumber(i)),
                     (i==1 ? x : getWidth()-x-size) + offsetX,
                     yName,
                     size);*/
@@ -294,10 +402,10 @@ public class GUI extends JFrame
         g.setColor(Color.BLACK);
         drawCenteredString(g, ":", getWidth()/2-size, yDiv, 2*size);
         for(int i=0; i<2; i++) {
-            g.setColor(Rules.league.teamColor[data.team[i].teamColor]);
+            g.setColor(Rules.league.teamColor[data.getTeamColor(i)]);
             drawCenteredString(
                     g,
-                    data.team[i].score+"",
+                    data.getScore(i)+"",
                     i==1 ? x : getWidth()-x-size,
                     y,
                     size);
@@ -316,7 +424,7 @@ public class GUI extends JFrame
         int x = getSizeToWidth(0.4);
         int y = getSizeToHeight(0.35);
         int size = getSizeToWidth(0.2);
-        drawCenteredString(g, formatTime(data.secsRemaining), x, y, size);
+        drawCenteredString(g, formatTime(data.getSecsRemaining()), x, y, size);
     }
     
     /**
@@ -332,17 +440,17 @@ public class GUI extends JFrame
         int y = getSizeToHeight(0.74);
         int size = getSizeToWidth(0.2);
         String state;
-        if(data.timeOut == GameControlData.C_FALSE) {
-            switch(data.secGameState) {
+        if(data.getTimeOut() == GameControlData.C_FALSE) {
+            switch(data.getSecGameState()) {
                 case GameControlData.STATE2_NORMAL:
-                    if(data.firstHalf == GameControlData.C_TRUE) {
-                        if(data.gameState == GameControlData.STATE_FINISHED) {
+                    if(data.getFirstHalf() == GameControlData.C_TRUE) {
+                        if(data.getGameState() == GameControlData.STATE_FINISHED) {
                             state = "Half Time";
                         } else {
                             state = "First Half";
                         }
                     } else {
-                        if(data.gameState == GameControlData.STATE_INITIAL) {
+                        if(data.getGameState() == GameControlData.STATE_INITIAL) {
                             state = "Half Time";
                         } else {
                             state = "Second Half";
@@ -372,7 +480,7 @@ public class GUI extends JFrame
         int y = getSizeToHeight(0.85);
         int size = getSizeToWidth(0.2);
         String state;
-        switch(data.gameState) {
+        switch(data.getGameState()) {
             case GameControlData.STATE_INITIAL:  state = "Initial"; break;
             case GameControlData.STATE_READY:    state = "Ready";   break;
             case GameControlData.STATE_SET:      state = "Set";     break;
@@ -390,7 +498,7 @@ public class GUI extends JFrame
      */
     private void drawSubTime(Graphics g)
     {
-        if(data.subTime == 0) {
+        if(data.getSubTime() == 0) {
             return;
         }
         g.setColor(Color.BLACK);
@@ -398,7 +506,7 @@ public class GUI extends JFrame
         int x = getSizeToWidth(0.4);
         int y = getSizeToHeight(0.96);
         int size = getSizeToWidth(0.2);
-        drawCenteredString(g, formatTime(data.subTime), x, y, size);
+        drawCenteredString(g, formatTime(data.getSubTime()), x, y, size);
     }
     
     /**
@@ -413,9 +521,9 @@ public class GUI extends JFrame
         int y = getSizeToHeight(0.86);
         int size = getSizeToWidth(0.02);
         for(int i=0; i<2; i++) {
-            g.setColor(Rules.league.teamColor[data.team[i].teamColor]);
-            for(int j=0; j<data.penaltyShot[i]; j++) {
-                if((data.penaltyTries[i] & (1<<j)) != 0) {
+            g.setColor(Rules.league.teamColor[data.getTeamColor(i)]);
+            for(int j=0; j<data.getPenaltyShot(i); j++) {
+                if((data.getPenaltyTries(i) & (1<<j)) != 0) {
                     g.fillOval(i==1 ? x+j*2*size : getWidth()-x-(5-j)*2*size-size, y, size, size);
                 } else {
                     g.drawOval(i==1 ? x+j*2*size : getWidth()-x-(5-j)*2*size-size, y, size, size);
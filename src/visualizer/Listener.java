@@ -2,6 +2,7 @@ package visualizer;
 
 import common.Log;
 import data.GameControlData;
+import data.GameControlDataView;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
@@ -17,27 +18,34 @@ public class Listener implements Runnable
     /** This is the port on which to listen. */
     private static final int PORT = 3838;
     
-    /** The GUI to listen for, it´s update method will be called. */
-    private GUI gui;
     /** Some attributes for receiving. */
     private DatagramSocket socket;
-    private ByteBuffer buffer;
-    private DatagramPacket packet;
+    /**
+     * Three buffers, packets and views, used as the slots of the mailbox.
+     * So a packet can be received while the GUI still shows another one.
+     */
+    private ByteBuffer[] buffer = new ByteBuffer[3];
+    private DatagramPacket[] packet = new DatagramPacket[3];
+    private GameControlDataView[] view = new GameControlDataView[3];
+    /** The latest packet received is put into this for the GUI. */
+    private Mailbox<GameControlDataView> mailbox = new Mailbox<GameControlDataView>(view);
     /** This will be set true by the method close to stop receiving. */
     private boolean closed = false;
 
     /**
      * Creates a new Listener.
      */
-    public Listener(GUI gui)
+    public Listener()
     {
-        this.gui = gui;
         try {
             socket = new DatagramSocket(null);
             socket.setReuseAddress(true);
             socket.bind(new InetSocketAddress(PORT));
-            buffer = ByteBuffer.wrap(new byte[GameControlData.SIZE]);
-            packet = new DatagramPacket(buffer.array(), buffer.array().length);
+            for(int i=0; i<buffer.length; i++) {
+                buffer[i] = ByteBuffer.wrap(new byte[GameControlData.SIZE]);
+                packet[i] = new DatagramPacket(buffer[i].array(), buffer[i].array().length);
+                view[i] = new GameControlDataView().wrap(buffer[i]);
+            }
         } catch (Exception e) {
             Log.error("Error on start listening to port "+PORT);
             System.exit(1);
@@ -49,11 +57,10 @@ public class Listener implements Runnable
     {
         while (!closed) {
             try {
-                socket.receive(packet);
-                buffer.rewind();
-                GameControlData data = new GameControlData();
-                if(data.fromByteArray(buffer)) {
-                    gui.update(data);
+                int next = mailbox.getBack();
+                socket.receive(packet[next]);
+                if(view[next].isValid()) {
+                    mailbox.publish();
                 }
             } catch(Exception e) {
                 if(!closed) {
@@ -63,6 +70,16 @@ public class Listener implements Runnable
         }
     }
     
+    /**
+     * Returns the mailbox the latest packet received is put into.
+     * 
+     * @return The mailbox, its slots are views on the packets.
+     */
+    public Mailbox<GameControlDataView> getMailbox()
+    {
+        return mailbox;
+    }
+    
     /**
      * Closes the socket and stops receiving.
      */
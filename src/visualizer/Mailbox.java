@@ -0,0 +1,114 @@
+package visualizer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class passes the latest of a stream of values from one thread to
+ * another without locks. Values the consumer was too slow for are dropped,
+ * it always gets the latest one.
+ *
+ * It is a triple buffer: the producer fills the back slot, the consumer
+ * reads the front slot, and the third slot is in between. Publishing swaps
+ * the back slot with the middle one, taking swaps the front slot with it.
+ * Both are a single atomic operation on the index of the middle slot,
+ * together with a bit telling whether it holds a value not taken yet. So
+ * neither thread ever waits for the other, and a slot is never written
+ * while it is read.
+ *
+ * @param <T>   The type of the slots.
+ */
+public class Mailbox<T>
+{
+    /** Set in the middle index if the middle slot was not taken yet. */
+    private static final int FRESH = 4;
+    /** The bits of the middle index giving the slot. */
+    private static final int INDEX = 3;
+
+    /** The three slots. */
+    private final T[] slots;
+    /** The index of the middle slot and maybe FRESH. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /** The index of the slot the producer fills, only used by it. */
+    private int back = 0;
+    /** The index of the slot the consumer reads, only used by it. */
+    private int front = 2;
+    /** The number of values published, only written by the producer. */
+    private volatile long published = 0;
+    /** The number of values dropped, only written by the producer. */
+    private volatile long coalesced = 0;
+
+    /**
+     * Creates a new Mailbox.
+     *
+     * @param slots     The three slots the values are stored in.
+     */
+    public Mailbox(T[] slots)
+    {
+        if(slots.length != 3) {
+            throw new IllegalArgumentException("a mailbox needs three slots");
+        }
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the index of the slot the producer may fill with the next value.
+     *
+     * @return The index, between 0 and 2.
+     */
+    public int getBack()
+    {
+        return back;
+    }
+
+    /**
+     * Publishes the value in the back slot, so the consumer can take it.
+     * Afterwards the producer gets another back slot. If the consumer did
+     * not take the value published before, that one is dropped.
+     */
+    public void publish()
+    {
+        int old = middle.getAndSet(back | FRESH);
+        back = old & INDEX;
+        published++;
+        if((old & FRESH) != 0) {
+            coalesced++;
+        }
+    }
+
+    /**
+     * Takes the latest value published. The slot it is in stays untouched
+     * until the next call.
+     *
+     * @return The latest value or null if none was published since the
+     *         last call.
+     */
+    public T take()
+    {
+        if((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return slots[front];
+    }
+
+    /**
+     * Returns how many values were published.
+     *
+     * @return The number of values.
+     */
+    public long getPublished()
+    {
+        return published;
+    }
+
+    /**
+     * Returns how many values were dropped because a newer one was
+     * published before they were taken.
+     *
+     * @return The number of values.
+     */
+    public long getCoalesced()
+    {
+        return coalesced;
+    }
+}
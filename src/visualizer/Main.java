@@ -1,6 +1,7 @@
 package visualizer;
 
 import data.Rules;
+import data.Teams;
 
 /**
  * @author: Michel Bartsch
@@ -43,9 +44,10 @@ public class Main
             }
         }
         
-        GUI gui = new GUI();
+        Teams.preloadIcons();
+        listener = new Listener();
+        GUI gui = new GUI(listener.getMailbox());
         new KeyboardListener(gui);
-        listener = new Listener(gui);
         Thread network = new Thread(listener);
         network.start();
     }
@@ -0,0 +1,149 @@
+package data;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Checks that the copy-constructors of AdvancedData and the classes it
+ * contains copy every field. As they are written by hand, a field that is
+ * added but forgotten in a copy-constructor lets this test fail.
+ *
+ * Every declared field of an AdvancedData is found by reflection and set
+ * to a value that differs from its default. Then the copy must have the
+ * same values, and every array and object except strings must be a copy
+ * and not the same instance.
+ */
+public class AdvancedDataTest
+{
+    /** Makes the values set different from each other. */
+    private static int counter = 0;
+
+    public static void main(String[] args) throws Exception
+    {
+        for(Rules league : Rules.LEAGUES) {
+            Rules.league = league;
+            AdvancedData data = new AdvancedData();
+            populate(data);
+            compare("new AdvancedData(data)", data, new AdvancedData(data));
+            compare("data.clone()", data, data.clone());
+        }
+        System.out.println("AdvancedDataTest passed");
+    }
+
+    /**
+     * Sets every field of an object to a value differing from the one it has.
+     *
+     * @param object    The object, which must be in the package data.
+     */
+    private static void populate(Object object) throws IllegalAccessException
+    {
+        for(Class<?> c = object.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for(Field field : c.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = field.get(object);
+                if(field.getType().isPrimitive() || value instanceof String) {
+                    field.set(object, change(field.getType(), value));
+                } else {
+                    populateValue(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the content of an array or an object.
+     */
+    private static void populateValue(Object value) throws IllegalAccessException
+    {
+        if(value.getClass().isArray()) {
+            Class<?> type = value.getClass().getComponentType();
+            for(int i=0; i<Array.getLength(value); i++) {
+                if(type.isPrimitive() || type == String.class) {
+                    Array.set(value, i, change(type, Array.get(value, i)));
+                } else {
+                    populateValue(Array.get(value, i));
+                }
+            }
+        } else {
+            populate(value);
+        }
+    }
+
+    /**
+     * Returns a value of a primitive type or a string that differs from the
+     * given one.
+     */
+    private static Object change(Class<?> type, Object value)
+    {
+        int delta = ++counter % 100 + 1;
+        if(type == boolean.class) {
+            return !(Boolean)value;
+        } else if(type == byte.class) {
+            return (byte)((Byte)value + delta);
+        } else if(type == short.class) {
+            return (short)((Short)value + delta);
+        } else if(type == int.class) {
+            return (Integer)value + delta;
+        } else if(type == long.class) {
+            return (Long)value + delta;
+        } else if(type == float.class) {
+            return (Float)value + delta;
+        } else if(type == double.class) {
+            return (Double)value + delta;
+        } else if(type == char.class) {
+            return (char)((Character)value + delta);
+        } else if(type == String.class) {
+            return value + "#" + delta;
+        }
+        throw new AssertionError("unsupported type "+type);
+    }
+
+    /**
+     * Compares an object with its copy field by field.
+     *
+     * @param path      The name of the object for error messages.
+     * @param original  The object.
+     * @param copy      The copy.
+     */
+    private static void compare(String path, Object original, Object copy) throws IllegalAccessException
+    {
+        if(original == null || copy == null || original.getClass() != copy.getClass()) {
+            throw new AssertionError(path+": "+copy+" instead of "+original);
+        }
+        if(original instanceof String || original.getClass().isPrimitive() || isWrapper(original)) {
+            if(!original.equals(copy)) {
+                throw new AssertionError(path+": "+copy+" instead of "+original);
+            }
+            return;
+        }
+        if(original == copy) {
+            throw new AssertionError(path+" is not copied");
+        }
+        if(original.getClass().isArray()) {
+            if(Array.getLength(original) != Array.getLength(copy)) {
+                throw new AssertionError(path+" has a different length");
+            }
+            for(int i=0; i<Array.getLength(original); i++) {
+                compare(path+"["+i+"]", Array.get(original, i), Array.get(copy, i));
+            }
+            return;
+        }
+        for(Class<?> c = original.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for(Field field : c.getDeclaredFields()) {
+                if(!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    compare(path+"."+field.getName(), field.get(original), field.get(copy));
+                }
+            }
+        }
+    }
+
+    private static boolean isWrapper(Object value)
+    {
+        return value instanceof Number || value instanceof Boolean || value instanceof Character;
+    }
+}
@@ -0,0 +1,119 @@
+package data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Checks that GameControlData.encodeInto and toByteArray write the same
+ * bytes as the encoder did before encodeInto was introduced. The expected
+ * packet was written by that encoder for the game created here.
+ */
+public class GameControlDataTest
+{
+    /** The packet of the game, as written by the former toByteArray. */
+    private static final int[] EXPECTED = {
+        0x52, 0x47, 0x6d, 0x65, 0x07, 0x00, 0x00, 0x00, 0x05, 0x03, 0x00, 0x01, 0x02, 0x01, 0x2a, 0x00,
+        0x3d, 0x01, 0x00, 0x00, 0x05, 0x01, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x02, 0x00, 0x17, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x12, 0x00, 0x01, 0x0c, 0x08, 0x00, 0x2c, 0x01, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x05, 0x00, 0x07, 0x00, 0x0e, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01, 0x02, 0x03, 0x05, 0x00,
+        0x06, 0x00, 0x0e, 0x00
+    };
+
+    public static void main(String[] args)
+    {
+        GameControlData data = createGame();
+        byte[] expected = new byte[EXPECTED.length];
+        for(int i=0; i<expected.length; i++) {
+            expected[i] = (byte)EXPECTED[i];
+        }
+        if(expected.length != GameControlData.SIZE) {
+            throw new AssertionError("the packet has "+GameControlData.SIZE+" bytes instead of "+expected.length);
+        }
+
+        check("toByteArray()", expected, data.toByteArray().array());
+
+        // encodeInto must only write its SIZE bytes behind the position
+        ByteBuffer buffer = ByteBuffer.allocate(GameControlData.SIZE + 10);
+        Arrays.fill(buffer.array(), (byte)0x55);
+        buffer.position(3);
+        data.encodeInto(buffer);
+        if(buffer.position() != 3 + GameControlData.SIZE) {
+            throw new AssertionError("encodeInto() moved the position to "+buffer.position());
+        }
+        check("encodeInto()", expected, Arrays.copyOfRange(buffer.array(), 3, 3 + GameControlData.SIZE));
+        for(int i : new int[] {0, 1, 2, 3 + GameControlData.SIZE, buffer.capacity() - 1}) {
+            if(buffer.get(i) != 0x55) {
+                throw new AssertionError("encodeInto() wrote outside its packet at "+i);
+            }
+        }
+
+        // a reused buffer
+        buffer.clear();
+        new GameControlData().encodeInto(buffer);
+        buffer.clear();
+        data.encodeInto(buffer);
+        check("encodeInto() into a reused buffer", expected, Arrays.copyOf(buffer.array(), GameControlData.SIZE));
+
+        System.out.println("GameControlDataTest passed");
+    }
+
+    /**
+     * Creates a game in which everything is set that is sent, including
+     * scores and penalties of both teams.
+     *
+     * @return The game.
+     */
+    private static GameControlData createGame()
+    {
+        GameControlData data = new GameControlData();
+        data.playersPerTeam = 5;
+        data.gameState = GameControlData.STATE_PLAYING;
+        data.firstHalf = GameControlData.C_FALSE;
+        data.kickOffTeam = GameControlData.TEAM_RED;
+        data.secGameState = GameControlData.STATE2_OVERTIME;
+        data.dropInTeam = GameControlData.TEAM_RED;
+        data.dropInTime = 42;
+        data.secsRemaining = 317;
+        data.team[0].teamNumber = 5;
+        data.team[0].teamColor = GameControlData.TEAM_RED;
+        data.team[0].goalColor = GameControlData.GOAL_BLUE;
+        data.team[0].score = 3;
+        data.team[0].player[1].penalty = PlayerInfo.PENALTY_SPL_PLAYER_PUSHING;
+        data.team[0].player[1].secsTillUnpenalised = 23;
+        data.team[1].teamNumber = 18;
+        data.team[1].teamColor = GameControlData.TEAM_BLUE;
+        data.team[1].goalColor = GameControlData.GOAL_YELLOW;
+        data.team[1].score = 12;
+        data.team[1].player[0].penalty = PlayerInfo.PENALTY_SPL_REQUEST_FOR_PICKUP;
+        data.team[1].player[0].secsTillUnpenalised = 300;
+        data.team[1].player[3].penalty = PlayerInfo.PENALTY_SPL_ILLEGAL_DEFENDER;
+        data.team[1].player[3].secsTillUnpenalised = 7;
+        data.team[1].player[4].penalty = PlayerInfo.PENALTY_SUBSTITUTE;
+        data.timeOut = 1;
+        data.penaltyShot[0] = 2;
+        data.penaltyShot[1] = 3;
+        data.penaltyTries[0] = 5;
+        data.penaltyTries[1] = 6;
+        data.subTime = 14;
+        return data;
+    }
+
+    /**
+     * Compares a packet with the expected one.
+     *
+     * @param what      How the packet was written, for error messages.
+     * @param expected  The expected packet.
+     * @param actual    The packet written.
+     */
+    private static void check(String what, byte[] expected, byte[] actual)
+    {
+        for(int i=0; i<expected.length; i++) {
+            if(actual[i] != expected[i]) {
+                throw new AssertionError(what+" wrote "+actual[i]+" instead of "+expected[i]+" at byte "+i);
+            }
+        }
+    }
+}